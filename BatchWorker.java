@@ -0,0 +1,61 @@
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Generates mazes for the next unclaimed seed until the seeds run out
+class BatchWorker implements Runnable {
+  MazeBatch batch;
+  AtomicLong nextSeed; // next seed no worker has claimed yet
+  long toSeed; // first seed past the end of the batch
+  BlockingQueue<SeededMaze> finished; // mazes waiting for the consumer
+  AtomicBoolean stopped; // set once the batch should give up early
+  AtomicReference<Throwable> failure; // the first error a worker hit, if any
+
+  BatchWorker(MazeBatch batch, AtomicLong nextSeed, long toSeed,
+      BlockingQueue<SeededMaze> finished, AtomicBoolean stopped,
+      AtomicReference<Throwable> failure) {
+    this.batch = batch;
+    this.nextSeed = nextSeed;
+    this.toSeed = toSeed;
+    this.finished = finished;
+    this.stopped = stopped;
+    this.failure = failure;
+  }
+
+  // EFFECT: generates mazes and queues them for the consumer, then queues the
+  // marker that this worker is done, even if generating failed, since the consumer
+  // waits for every marker
+  public void run() {
+    try {
+      long seed = this.nextSeed.getAndIncrement();
+      while (seed < this.toSeed && !this.stopped.get()) {
+        MazeEngine engine = new MazeEngine(this.batch.rows, this.batch.columns, seed);
+        this.finished.put(new SeededMaze(seed, engine));
+        seed = this.nextSeed.getAndIncrement();
+      }
+    }
+    catch (InterruptedException e) {
+      // the batch was stopped
+      return;
+    }
+    catch (Throwable e) {
+      // an Error such as OutOfMemoryError too, which the consumer rethrows
+      this.failure.compareAndSet(null, e);
+      this.stopped.set(true);
+    }
+    finally {
+      done();
+    }
+  }
+
+  // EFFECT: queues the marker that this worker is done
+  void done() {
+    try {
+      this.finished.put(new SeededMaze(-1, null));
+    }
+    catch (InterruptedException e) {
+      // the batch was stopped, so nobody waits for the marker
+    }
+  }
+}
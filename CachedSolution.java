@@ -0,0 +1,66 @@
+// A solution kept in a SolutionCache
+// instead of an int per cell, the path keeps two bits per step, four steps to a byte:
+// the direction of each step (0 top, 1 left, 2 right, 3 bottom, like
+// MazeEngine.openNeighbor), walking back from the finish
+class CachedSolution {
+  byte[] directions; // packed steps
+  int length; // num cells on the path, not counting the start and the finish
+  int nodesExpanded; // cells the search expanded to find it
+
+  // path is ordered like the result of MazeEngine.bfs, from the cell before the finish
+  // back to the cell after the start
+  CachedSolution(int[] path, int columns, int finish, int nodesExpanded) {
+    this.length = path.length;
+    this.nodesExpanded = nodesExpanded;
+    this.directions = new byte[(path.length + 3) / 4];
+    int from = finish;
+    for (int i = 0; i < path.length; i++) {
+      int dir = direction(from, path[i], columns);
+      this.directions[i >> 2] |= (byte) (dir << (2 * (i & 3)));
+      from = path[i];
+    }
+  }
+
+  // returns the direction of the step between two neighboring cells
+  static int direction(int from, int to, int columns) {
+    if (to == from - 1) {
+      return 0;
+    }
+    else if (to == from - columns) {
+      return 1;
+    }
+    else if (to == from + columns) {
+      return 2;
+    }
+    else if (to == from + 1) {
+      return 3;
+    }
+    else {
+      throw new IllegalArgumentException("cells " + from + " and " + to
+          + " are not neighbors");
+    }
+  }
+
+  // returns the path through a maze of the given size, in the order it was cached in
+  int[] path(int rows, int columns) {
+    int[] path = new int[this.length];
+    int cell = rows * columns - 1;
+    for (int i = 0; i < this.length; i++) {
+      int dir = (this.directions[i >> 2] >> (2 * (i & 3))) & 3;
+      if (dir == 0) {
+        cell -= 1;
+      }
+      else if (dir == 1) {
+        cell -= columns;
+      }
+      else if (dir == 2) {
+        cell += columns;
+      }
+      else {
+        cell += 1;
+      }
+      path[i] = cell;
+    }
+    return path;
+  }
+}
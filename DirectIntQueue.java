@@ -0,0 +1,53 @@
+import java.nio.IntBuffer;
+
+// A queue of ints kept outside the heap, in a circular buffer that doubles when full
+class DirectIntQueue implements IIntCollection {
+  IntBuffer contents;
+  int head; // index of the first item
+  int size;
+
+  DirectIntQueue(int capacity) {
+    this.contents = DirectIntStack.allocate(Math.max(1, capacity));
+    this.head = 0;
+    this.size = 0;
+  }
+
+  // checks if the queue is empty
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // returns the number of items in the queue
+  public int size() {
+    return this.size;
+  }
+
+  // removes and returns the first item in the queue
+  public int remove() {
+    int item = this.contents.get(this.head);
+    this.head++;
+    if (this.head == this.contents.capacity()) {
+      this.head = 0;
+    }
+    this.size--;
+    return item;
+  }
+
+  // adds an item to the end of the queue
+  public void add(int item) {
+    if (this.size == this.contents.capacity()) {
+      IntBuffer bigger = DirectIntStack.allocate(DirectIntStack.grow(this.size));
+      for (int i = 0; i < this.size; i++) {
+        bigger.put(i, this.contents.get((this.head + i) % this.size));
+      }
+      this.contents = bigger;
+      this.head = 0;
+    }
+    int tail = this.head + this.size;
+    if (tail >= this.contents.capacity()) {
+      tail -= this.contents.capacity();
+    }
+    this.contents.put(tail, item);
+    this.size++;
+  }
+}
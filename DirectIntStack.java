@@ -0,0 +1,58 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+// A stack of ints kept outside the heap, in a buffer that doubles when full
+class DirectIntStack implements IIntCollection {
+  IntBuffer contents;
+  int size;
+
+  DirectIntStack(int capacity) {
+    this.contents = allocate(Math.max(1, capacity));
+    this.size = 0;
+  }
+
+  // returns a buffer outside the heap with room for the given number of ints
+  static IntBuffer allocate(int capacity) {
+    return ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder())
+        .asIntBuffer();
+  }
+
+  // returns the capacity to grow a full buffer of the given capacity to
+  static int grow(int capacity) {
+    int most = Integer.MAX_VALUE / 4;
+    if (capacity == most) {
+      throw new IllegalStateException("too many items for one buffer");
+    }
+    return (int) Math.min(2L * capacity, most);
+  }
+
+  // checks if the stack is empty
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // returns the number of items in the stack
+  public int size() {
+    return this.size;
+  }
+
+  // removes and returns the top item in the stack
+  public int remove() {
+    this.size--;
+    return this.contents.get(this.size);
+  }
+
+  // adds an item to the top of the stack
+  public void add(int item) {
+    if (this.size == this.contents.capacity()) {
+      IntBuffer bigger = allocate(grow(this.size));
+      for (int i = 0; i < this.size; i++) {
+        bigger.put(i, this.contents.get(i));
+      }
+      this.contents = bigger;
+    }
+    this.contents.put(this.size, item);
+    this.size++;
+  }
+}
@@ -0,0 +1,63 @@
+import java.util.Arrays;
+
+// How far every cell of a maze is from the finish, and which way leads there
+// the maze is a tree, so one breadth first search out from the finish finds the only
+// path from every cell: afterwards, the next step and the rest of the way from any cell
+// are lookups instead of a search
+class DistanceField {
+  MazeEngine engine;
+  int finish; // the last cell
+  int[] distance; // steps from each cell to the finish
+  int[] next; // neighbor of each cell one step closer to the finish, -1 for the finish
+
+  DistanceField(MazeEngine engine) {
+    this.engine = engine;
+    int n = engine.cellCount();
+    this.finish = n - 1;
+    this.distance = new int[n];
+    this.next = new int[n];
+    Arrays.fill(this.distance, -1);
+
+    // every cell is reached once, so the queue is a plain array
+    int[] queue = new int[n];
+    int head = 0;
+    int tail = 0;
+    queue[tail] = this.finish;
+    tail++;
+    this.distance[this.finish] = 0;
+    this.next[this.finish] = -1;
+    while (head < tail) {
+      int cell = queue[head];
+      head++;
+      for (int dir = 0; dir < 4; dir++) {
+        int neighbor = engine.openNeighbor(cell, dir);
+        if (neighbor >= 0 && this.distance[neighbor] == -1) {
+          this.distance[neighbor] = this.distance[cell] + 1;
+          this.next[neighbor] = cell;
+          queue[tail] = neighbor;
+          tail++;
+        }
+      }
+    }
+  }
+
+  // returns the number of steps from the cell to the finish
+  int distance(int cell) {
+    return this.distance[cell];
+  }
+
+  // returns the neighbor one step closer to the finish, or -1 if the cell is the finish
+  int nextHop(int cell) {
+    return this.next[cell];
+  }
+
+  // returns the cells on the way from the cell to the finish, both included
+  int[] remainingPath(int cell) {
+    int[] path = new int[this.distance[cell] + 1];
+    for (int i = 0; i < path.length; i++) {
+      path[i] = cell;
+      cell = this.next[cell];
+    }
+    return path;
+  }
+}
@@ -0,0 +1,181 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+// Generates a maze one line at a time using Ellers Algorithm, so only one line of the
+// maze is ever in memory, however many lines there are
+// every cell on the current line belongs to a set of cells already connected to each
+// other; neighbors in different sets are joined at random, then every set is carried
+// on to the next line through at least one opening, and the last line joins all the
+// sets that are left, so every cell ends up connected to every other exactly once
+class EllerGenerator {
+  int rows; // num lines of cells, across the board
+  int columns; // num cells on each line
+  Random r;
+  int coins; // random bits not used yet
+  int coinsLeft; // number of bits left in coins
+
+  EllerGenerator(int rows, int columns, Random r) {
+    if (rows < 1 || columns < 1) {
+      throw new IllegalArgumentException("rows and columns must be at least 1");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.r = r;
+    this.coinsLeft = 0;
+  }
+
+  // returns true or false at random
+  // every cell takes two coin flips, so they are drawn 32 at a time
+  boolean flip() {
+    if (this.coinsLeft == 0) {
+      this.coins = this.r.nextInt();
+      this.coinsLeft = 32;
+    }
+    this.coinsLeft--;
+    boolean heads = (this.coins & 1) == 1;
+    this.coins >>>= 1;
+    return heads;
+  }
+
+  // EFFECT: generates the maze, handing every line to the sink in order
+  void generate(LineSink sink) throws IOException {
+    EllerLine line = new EllerLine(this.columns);
+    for (int x = 0; x < this.rows; x++) {
+      boolean last = x == this.rows - 1;
+      line.startSets();
+      line.join(this, last);
+      line.carry(this, last);
+      sink.line(x, line.walls());
+      line.advance();
+    }
+  }
+}
+
+// The one line of cells an EllerGenerator keeps in memory
+class EllerLine {
+  int columns; // num cells on the line
+  int[] set; // set of each cell on the line, -1 if none yet
+  int[] next; // set each cell carries on to the next line, -1 if none
+  boolean[] openLeft; // openings from the last line
+  boolean[] openDown; // openings to the next cell down
+  boolean[] openRight; // openings to the next line
+  int[] lastInSet; // last cell on the line in each set
+  boolean[] carried; // has the set an opening to the next line yet?
+  int[] renumber; // new label of each set, -1 if none
+  byte[] walls; // wall masks of the cells on the line
+  UnionFind sets; // sets joined on this line
+
+  EllerLine(int columns) {
+    this.columns = columns;
+    this.set = new int[columns];
+    this.next = new int[columns];
+    this.openLeft = new boolean[columns];
+    this.openDown = new boolean[columns];
+    this.openRight = new boolean[columns];
+    this.lastInSet = new int[columns];
+    this.carried = new boolean[columns];
+    this.renumber = new int[columns];
+    this.walls = new byte[columns];
+    this.sets = new UnionFind(columns);
+    Arrays.fill(this.set, -1);
+  }
+
+  // EFFECT: puts the cells without an opening from the last line in sets of their own,
+  // using the labels that no set carried on
+  void startSets() {
+    Arrays.fill(this.renumber, -1);
+    for (int y = 0; y < this.columns; y++) {
+      if (this.set[y] != -1) {
+        this.renumber[this.set[y]] = 0;
+      }
+    }
+    int free = 0;
+    for (int y = 0; y < this.columns; y++) {
+      if (this.set[y] == -1) {
+        while (this.renumber[free] != -1) {
+          free++;
+        }
+        this.set[y] = free;
+        this.renumber[free] = 0;
+      }
+    }
+    this.sets.reset();
+  }
+
+  // EFFECT: joins neighbors in different sets at random, or all of them on the last line
+  void join(EllerGenerator generator, boolean last) {
+    for (int y = 0; y < this.columns - 1; y++) {
+      this.openDown[y] = (last || generator.flip())
+          && this.sets.union(this.set[y], this.set[y + 1]);
+    }
+    this.openDown[this.columns - 1] = false;
+    for (int y = 0; y < this.columns; y++) {
+      this.set[y] = this.sets.find(this.set[y]);
+    }
+  }
+
+  // EFFECT: opens cells to the next line at random, at least one in every set, or none
+  // on the last line
+  void carry(EllerGenerator generator, boolean last) {
+    if (last) {
+      Arrays.fill(this.openRight, false);
+      return;
+    }
+    for (int y = 0; y < this.columns; y++) {
+      this.lastInSet[this.set[y]] = y;
+      this.carried[this.set[y]] = false;
+    }
+    for (int y = 0; y < this.columns; y++) {
+      int s = this.set[y];
+      this.openRight[y] = generator.flip() || (this.lastInSet[s] == y && !this.carried[s]);
+      this.carried[s] |= this.openRight[y];
+    }
+  }
+
+  // returns the wall masks of the cells on the line
+  byte[] walls() {
+    for (int y = 0; y < this.columns; y++) {
+      byte w = 0;
+      if (y == 0 || !this.openDown[y - 1]) {
+        w |= MazeEngine.TOP;
+      }
+      if (!this.openLeft[y]) {
+        w |= MazeEngine.LEFT;
+      }
+      if (!this.openRight[y]) {
+        w |= MazeEngine.RIGHT;
+      }
+      if (!this.openDown[y]) {
+        w |= MazeEngine.BOTTOM;
+      }
+      this.walls[y] = w;
+    }
+    return this.walls;
+  }
+
+  // EFFECT: moves on to the next line, numbering the sets carried on from 0 again so
+  // labels never run out
+  void advance() {
+    Arrays.fill(this.renumber, -1);
+    int count = 0;
+    for (int y = 0; y < this.columns; y++) {
+      if (this.openRight[y]) {
+        if (this.renumber[this.set[y]] == -1) {
+          this.renumber[this.set[y]] = count;
+          count++;
+        }
+        this.next[y] = this.renumber[this.set[y]];
+      }
+      else {
+        this.next[y] = -1;
+      }
+    }
+    int[] temp = this.set;
+    this.set = this.next;
+    this.next = temp;
+    boolean[] tempOpen = this.openLeft;
+    this.openLeft = this.openRight;
+    this.openRight = tempOpen;
+  }
+}
@@ -0,0 +1,15 @@
+// Represents a mutable collection of ints
+interface IIntCollection {
+  // Is this collection empty?
+  boolean isEmpty();
+
+  // EFFECT: adds the item to the collection
+  void add(int item);
+
+  // returns the number of items in the collection
+  int size();
+
+  // Returns the first item of the collection
+  // EFFECT: removes that first item
+  int remove();
+}
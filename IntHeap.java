@@ -0,0 +1,63 @@
+import java.util.Arrays;
+
+// A binary min-heap of ints ordered by an int priority, kept in parallel arrays
+class IntHeap {
+  int[] items;
+  int[] priorities;
+  int size;
+
+  IntHeap(int capacity) {
+    this.items = new int[capacity];
+    this.priorities = new int[capacity];
+    this.size = 0;
+  }
+
+  // checks if the heap is empty
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // EFFECT: adds the item with the given priority
+  void add(int item, int priority) {
+    if (this.size == this.items.length) {
+      this.items = Arrays.copyOf(this.items, this.size * 2);
+      this.priorities = Arrays.copyOf(this.priorities, this.size * 2);
+    }
+    int i = this.size;
+    this.size++;
+    // move the hole up until the parent has a smaller priority
+    while (i > 0 && this.priorities[(i - 1) / 2] > priority) {
+      this.items[i] = this.items[(i - 1) / 2];
+      this.priorities[i] = this.priorities[(i - 1) / 2];
+      i = (i - 1) / 2;
+    }
+    this.items[i] = item;
+    this.priorities[i] = priority;
+  }
+
+  // returns the item with the smallest priority
+  // EFFECT: removes that item
+  int remove() {
+    int min = this.items[0];
+    this.size--;
+    int item = this.items[this.size];
+    int priority = this.priorities[this.size];
+    int i = 0;
+    // move the hole down until both children have a larger priority
+    while (2 * i + 1 < this.size) {
+      int child = 2 * i + 1;
+      if (child + 1 < this.size && this.priorities[child + 1] < this.priorities[child]) {
+        child++;
+      }
+      if (this.priorities[child] >= priority) {
+        break;
+      }
+      this.items[i] = this.items[child];
+      this.priorities[i] = this.priorities[child];
+      i = child;
+    }
+    this.items[i] = item;
+    this.priorities[i] = priority;
+    return min;
+  }
+}
@@ -0,0 +1,44 @@
+// A queue of ints in a circular array, which doubles when it fills up
+class IntQueue implements IIntCollection {
+  int[] contents;
+  int head; // index of the first item
+  int size;
+
+  IntQueue(int capacity) {
+    this.contents = new int[Math.max(1, capacity)];
+    this.head = 0;
+    this.size = 0;
+  }
+
+  // checks if the queue is empty
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // returns the number of items in the queue
+  public int size() {
+    return this.size;
+  }
+
+  // removes and returns the first item in the queue
+  public int remove() {
+    int item = this.contents[this.head];
+    this.head = (this.head + 1) % this.contents.length;
+    this.size--;
+    return item;
+  }
+
+  // adds an item to the end of the queue
+  public void add(int item) {
+    if (this.size == this.contents.length) {
+      int[] bigger = new int[this.size * 2];
+      for (int i = 0; i < this.size; i++) {
+        bigger[i] = this.contents[(this.head + i) % this.contents.length];
+      }
+      this.contents = bigger;
+      this.head = 0;
+    }
+    this.contents[(this.head + this.size) % this.contents.length] = item;
+    this.size++;
+  }
+}
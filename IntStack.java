@@ -0,0 +1,36 @@
+import java.util.Arrays;
+
+class IntStack implements IIntCollection {
+  int[] contents;
+  int size;
+
+  IntStack(int capacity) {
+    this.contents = new int[Math.max(1, capacity)];
+    this.size = 0;
+  }
+
+  // checks if the stack is empty
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // returns the number of items in the stack
+  public int size() {
+    return this.size;
+  }
+
+  // removes and returns the top item in the stack
+  public int remove() {
+    this.size--;
+    return this.contents[this.size];
+  }
+
+  // adds an item to the top of the stack
+  public void add(int item) {
+    if (this.size == this.contents.length) {
+      this.contents = Arrays.copyOf(this.contents, this.size * 2);
+    }
+    this.contents[this.size] = item;
+    this.size++;
+  }
+}
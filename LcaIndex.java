@@ -0,0 +1,102 @@
+// Answers how far apart any two cells of a maze are, and the way between them, without
+// a search
+// the maze is a tree, rooted here at the finish by a DistanceField: the way between two
+// cells goes up from each of them to their lowest common ancestor, the first cell the
+// ways to the finish from both of them share
+// the ancestor is found by binary lifting: up[k][cell] is the cell 2^k steps closer to
+// the finish (or the finish, if it is nearer than that), so climbing any number of steps
+// takes one jump per bit of the number
+class LcaIndex {
+  DistanceField field;
+  int[][] up; // up[k][cell] is the cell 2^k steps from cell towards the finish
+
+  LcaIndex(MazeEngine engine) {
+    this(new DistanceField(engine));
+  }
+
+  LcaIndex(DistanceField field) {
+    this.field = field;
+    int n = field.distance.length;
+    int deepest = 0;
+    for (int cell = 0; cell < n; cell++) {
+      deepest = Math.max(deepest, field.distance[cell]);
+    }
+    // enough levels to climb from the deepest cell to the finish
+    int levels = 1;
+    while ((1 << levels) <= deepest) {
+      levels++;
+    }
+    this.up = new int[levels][];
+    this.up[0] = new int[n];
+    for (int cell = 0; cell < n; cell++) {
+      this.up[0][cell] = cell == field.finish ? cell : field.next[cell];
+    }
+    for (int k = 1; k < levels; k++) {
+      int[] half = this.up[k - 1];
+      int[] level = new int[n];
+      for (int cell = 0; cell < n; cell++) {
+        level[cell] = half[half[cell]];
+      }
+      this.up[k] = level;
+    }
+  }
+
+  // returns the cell the given number of steps from the cell towards the finish
+  int climb(int cell, int steps) {
+    for (int k = 0; steps != 0; k++) {
+      if ((steps & 1) != 0) {
+        cell = this.up[k][cell];
+      }
+      steps >>= 1;
+    }
+    return cell;
+  }
+
+  // returns the lowest common ancestor of the two cells, where the way between them
+  // turns round
+  int lca(int a, int b) {
+    int[] depth = this.field.distance;
+    if (depth[a] < depth[b]) {
+      int temp = a;
+      a = b;
+      b = temp;
+    }
+    a = climb(a, depth[a] - depth[b]);
+    if (a == b) {
+      return a;
+    }
+    for (int k = this.up.length - 1; k >= 0; k--) {
+      if (this.up[k][a] != this.up[k][b]) {
+        a = this.up[k][a];
+        b = this.up[k][b];
+      }
+    }
+    return this.up[0][a];
+  }
+
+  // returns the number of steps between the two cells
+  int distance(int a, int b) {
+    int[] depth = this.field.distance;
+    return depth[a] + depth[b] - 2 * depth[lca(a, b)];
+  }
+
+  // returns the cells on the way from a to b, both included
+  int[] path(int a, int b) {
+    int turn = lca(a, b);
+    int[] depth = this.field.distance;
+    int upSteps = depth[a] - depth[turn];
+    int[] path = new int[upSteps + depth[b] - depth[turn] + 1];
+    // up from a to the turn, then down to b, which is b up to the turn written backwards
+    int cell = a;
+    for (int i = 0; i <= upSteps; i++) {
+      path[i] = cell;
+      cell = this.field.next[cell];
+    }
+    cell = b;
+    for (int i = path.length - 1; i > upSteps; i--) {
+      path[i] = cell;
+      cell = this.field.next[cell];
+    }
+    return path;
+  }
+}
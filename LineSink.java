@@ -0,0 +1,8 @@
+import java.io.IOException;
+
+// Receives a maze one line at a time, where a line is all the cells with the same x
+interface LineSink {
+  // EFFECT: takes the wall masks (see MazeEngine) of the cells on line x, from top to
+  // bottom; the lines come in order, and the array is reused for the next line
+  void line(int x, byte[] walls) throws IOException;
+}
@@ -0,0 +1,38 @@
+import java.util.Arrays;
+
+// How a MazeLoadClient run went
+class LoadReport {
+  long[] latencies; // nanoseconds each request took, fastest first
+  int failures; // requests that got no answer, or an error
+  long nanos; // time from the first request to the last answer
+
+  LoadReport(long[] latencies, int failures, long nanos) {
+    this.latencies = latencies.clone();
+    Arrays.sort(this.latencies);
+    this.failures = failures;
+    this.nanos = nanos;
+  }
+
+  // returns the latency that the given fraction of the requests took no longer than
+  long percentile(double fraction) {
+    if (this.latencies.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(fraction * this.latencies.length) - 1;
+    return this.latencies[Math.max(0, Math.min(index, this.latencies.length - 1))];
+  }
+
+  // returns the number of requests answered per second
+  double throughput() {
+    return this.latencies.length / (this.nanos / 1e9);
+  }
+
+  // returns a one line summary
+  public String toString() {
+    return this.latencies.length + " requests, " + this.failures + " failed, in "
+        + MazeCli.millis(this.nanos) + " ms (" + String.format("%.1f", throughput())
+        + " requests/s); latency p50 " + MazeCli.millis(percentile(0.5)) + " ms, p99 "
+        + MazeCli.millis(percentile(0.99)) + " ms, max "
+        + MazeCli.millis(percentile(1.0)) + " ms";
+  }
+}
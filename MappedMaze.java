@@ -0,0 +1,11 @@
+import java.nio.ByteBuffer;
+
+// A maze loaded from a MazeFile, read directly from the file's pages
+class MappedMaze extends PackedMaze {
+  long seed; // seed the maze was generated from
+
+  MappedMaze(int rows, int columns, long seed, ByteBuffer buffer) {
+    super(rows, columns, buffer, MazeFile.HEADER);
+    this.seed = seed;
+  }
+}
@@ -0,0 +1,72 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// Generates the mazes for a range of seeds on several threads at once
+// every maze is built with its own new Random(seed), so it is exactly the maze
+// new Maze(rows, columns, new Random(seed)) would show
+class MazeBatch {
+  int rows; // num cells across each maze
+  int columns; // num cells down each maze
+  int threads; // number of mazes generated at the same time
+
+  MazeBatch(int rows, int columns, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads must be at least 1");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.threads = threads;
+  }
+
+  // EFFECT: generates the maze for every seed in [fromSeed, toSeed), and hands each one
+  // to the consumer as soon as it is finished, in no particular order
+  // the consumer is only ever called on this thread, and at most 2 * threads finished
+  // mazes wait for it at a time, so memory stays bounded however many seeds there are
+  void generate(long fromSeed, long toSeed, Consumer<SeededMaze> consumer) {
+    AtomicLong nextSeed = new AtomicLong(fromSeed);
+    AtomicBoolean stopped = new AtomicBoolean(false);
+    AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    BlockingQueue<SeededMaze> finished = new ArrayBlockingQueue<SeededMaze>(2 * this.threads);
+    ForkJoinPool pool = new ForkJoinPool(this.threads);
+    try {
+      for (int i = 0; i < this.threads; i++) {
+        pool.execute(new BatchWorker(this, nextSeed, toSeed, finished, stopped, failure));
+      }
+      // every worker finishes with a maze without an engine
+      int done = 0;
+      while (done < this.threads) {
+        SeededMaze m = finished.take();
+        if (m.engine == null) {
+          done++;
+        }
+        else if (!stopped.get()) {
+          consumer.accept(m);
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while generating mazes", e);
+    }
+    finally {
+      // stops the workers if the consumer threw
+      stopped.set(true);
+      pool.shutdownNow();
+    }
+    Throwable cause = failure.get();
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    if (cause != null) {
+      throw new IllegalStateException("generating a maze failed", cause);
+    }
+  }
+}
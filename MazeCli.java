@@ -0,0 +1,345 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Random;
+import javax.management.JMException;
+
+// Generates and solves a maze from the command line, without opening a window
+// usage: java MazeCli rows columns seed [--tiles=N] [--save=FILE] [--metrics]
+//            [bfs|dfs|astar|two-way|parallel-bfs]...
+// with no searches given, the first four are run (parallel-bfs finds the bfs path on
+// several threads, see ParallelBfs); with --tiles, the maze is generated in
+// N tiles on several threads (see TiledGenerator); with --save, it is saved to FILE
+// (see MazeFile); with --metrics, the time and work of each phase are recorded (see
+// MazeMetrics) and printed at the end
+//    or: java MazeCli load FILE [bfs|dfs|astar|two-way|parallel-bfs]...
+// which solves a saved maze
+//    or: java MazeCli stream rows columns seed FILE
+// which generates a maze one line at a time with Ellers Algorithm straight into FILE,
+// using memory for only one line of cells
+//    or: java MazeCli offheap rows columns seed
+//            [bfs|dfs|astar|two-way|parallel-bfs]...
+// which generates a maze with Ellers Algorithm outside the heap and solves it there
+// (see OffHeapMaze); only bfs and dfs keep their bookkeeping off the heap
+//    or: java MazeCli pairs rows columns seed count
+// which measures the distance between count random pairs of cells (see LcaIndex)
+//    or: java MazeCli batch rows columns fromSeed toSeed [threads]
+// which generates the maze for every seed in [fromSeed, toSeed) across threads
+//    or: java MazeCli serve [port] [threads]
+// which generates and solves mazes for other programs over HTTP (see MazeServer), with
+// its metrics on JMX to be switched on there
+//    or: java MazeCli loadgen port requests inFlight rows columns seeds
+//            [generate|solve|maze]
+// which measures the throughput and latency of a running server (see MazeLoadClient)
+class MazeCli {
+
+  public static void main(String[] args) {
+    try {
+      run(args);
+    }
+    catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println("usage: java MazeCli rows columns seed [--tiles=N] [--save=FILE] "
+          + "[--metrics] [bfs|dfs|astar|two-way|parallel-bfs]...");
+      System.err.println("   or: java MazeCli load FILE "
+          + "[bfs|dfs|astar|two-way|parallel-bfs]...");
+      System.err.println("   or: java MazeCli stream rows columns seed FILE");
+      System.err.println("   or: java MazeCli offheap rows columns seed "
+          + "[bfs|dfs|astar|two-way|parallel-bfs]...");
+      System.err.println("   or: java MazeCli pairs rows columns seed count");
+      System.err.println("   or: java MazeCli batch rows columns fromSeed toSeed [threads]");
+      System.err.println("   or: java MazeCli serve [port] [threads]");
+      System.err.println("   or: java MazeCli loadgen port requests inFlight rows columns "
+          + "seeds [generate|solve|maze]");
+      System.exit(1);
+    }
+    catch (IOException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+    }
+    catch (InterruptedException e) {
+      System.err.println("interrupted");
+      System.exit(1);
+    }
+  }
+
+  // EFFECT: generates and solves the maze described by the arguments, printing timings
+  static void run(String[] args) throws IOException, InterruptedException {
+    if (args.length > 0 && args[0].equals("batch")) {
+      runBatch(args);
+      return;
+    }
+    if (args.length > 0 && args[0].equals("serve")) {
+      runServer(args);
+      return;
+    }
+    if (args.length > 0 && args[0].equals("loadgen")) {
+      runLoadClient(args);
+      return;
+    }
+    if (args.length > 0 && args[0].equals("load")) {
+      runLoad(args);
+      return;
+    }
+    if (args.length > 0 && args[0].equals("stream")) {
+      runStream(args);
+      return;
+    }
+    if (args.length > 0 && args[0].equals("pairs")) {
+      runPairs(args);
+      return;
+    }
+    if (args.length > 0 && args[0].equals("offheap")) {
+      runOffHeap(args);
+      return;
+    }
+    if (args.length < 3) {
+      throw new IllegalArgumentException("expected rows, columns and seed");
+    }
+    int rows = Integer.parseInt(args[0]);
+    int columns = Integer.parseInt(args[1]);
+    long seed = Long.parseLong(args[2]);
+    if (rows < 1 || columns < 1) {
+      throw new IllegalArgumentException("rows and columns must be at least 1");
+    }
+
+    int tiles = 0;
+    String saveTo = null;
+    int firstSearch = 3;
+    while (args.length > firstSearch && args[firstSearch].startsWith("--")) {
+      String option = args[firstSearch];
+      if (option.startsWith("--tiles=")) {
+        tiles = Integer.parseInt(option.substring("--tiles=".length()));
+      }
+      else if (option.startsWith("--save=")) {
+        saveTo = option.substring("--save=".length());
+      }
+      else if (option.equals("--metrics")) {
+        MazeMetrics.setEnabled(true);
+        registerMetrics();
+      }
+      else {
+        throw new IllegalArgumentException("unknown option: " + option);
+      }
+      firstSearch++;
+    }
+
+    long start = System.nanoTime();
+    MazeEngine engine;
+    if (tiles > 0) {
+      engine = new MazeEngine(rows, columns, seed, tiles);
+    }
+    else {
+      engine = new MazeEngine(rows, columns, seed);
+    }
+    System.out.println("generated " + rows + "x" + columns + " maze (seed " + seed + ") in "
+        + millis(System.nanoTime() - start) + " ms");
+
+    if (saveTo != null) {
+      start = System.nanoTime();
+      MazeFile.save(Paths.get(saveTo), engine, seed);
+      System.out.println("saved to " + saveTo + " in " + millis(System.nanoTime() - start)
+          + " ms");
+    }
+    runSearches(engine, args, firstSearch);
+    if (MazeMetrics.enabled) {
+      printMetrics();
+    }
+  }
+
+  // EFFECT: prints everything MazeMetrics recorded, one counter to a line
+  static void printMetrics() {
+    for (Map.Entry<String, Long> e : MazeMetrics.snapshot().entrySet()) {
+      System.out.println("  " + e.getKey() + " = " + e.getValue());
+    }
+  }
+
+  // EFFECT: loads and solves a saved maze, printing timings
+  static void runLoad(String[] args) throws IOException {
+    if (args.length < 2) {
+      throw new IllegalArgumentException("expected a file");
+    }
+    long start = System.nanoTime();
+    MappedMaze maze = MazeFile.load(Paths.get(args[1]));
+    System.out.println("loaded " + maze.rows + "x" + maze.columns + " maze (seed " + maze.seed
+        + ") in " + millis(System.nanoTime() - start) + " ms");
+    runSearches(maze, args, 2);
+  }
+
+  // EFFECT: generates and solves a maze outside the heap, printing timings
+  static void runOffHeap(String[] args) {
+    if (args.length < 4) {
+      throw new IllegalArgumentException("expected rows, columns and seed");
+    }
+    int rows = Integer.parseInt(args[1]);
+    int columns = Integer.parseInt(args[2]);
+    long seed = Long.parseLong(args[3]);
+    if (rows < 1 || columns < 1) {
+      throw new IllegalArgumentException("rows and columns must be at least 1");
+    }
+    long start = System.nanoTime();
+    OffHeapMaze maze = new OffHeapMaze(rows, columns, new Random(seed));
+    System.out.println("generated " + rows + "x" + columns + " maze (seed " + seed
+        + ") off the heap in " + millis(System.nanoTime() - start) + " ms");
+    runSearches(maze, args, 4);
+  }
+
+  // EFFECT: measures the distances between random pairs of cells, printing timings
+  static void runPairs(String[] args) {
+    if (args.length < 5) {
+      throw new IllegalArgumentException("expected rows, columns, seed and count");
+    }
+    int rows = Integer.parseInt(args[1]);
+    int columns = Integer.parseInt(args[2]);
+    long seed = Long.parseLong(args[3]);
+    long count = Long.parseLong(args[4]);
+    if (rows < 1 || columns < 1) {
+      throw new IllegalArgumentException("rows and columns must be at least 1");
+    }
+    Random r = new Random(seed);
+    MazeEngine engine = new MazeEngine(rows, columns, r);
+    long start = System.nanoTime();
+    LcaIndex index = new LcaIndex(engine);
+    System.out.println("indexed " + rows + "x" + columns + " maze (seed " + seed + ") in "
+        + millis(System.nanoTime() - start) + " ms");
+
+    int cells = engine.cellCount();
+    long total = 0;
+    start = System.nanoTime();
+    for (long i = 0; i < count; i++) {
+      total += index.distance(r.nextInt(cells), r.nextInt(cells));
+    }
+    long time = System.nanoTime() - start;
+    System.out.println(count + " pairs, mean distance "
+        + String.format("%.1f", (double) total / Math.max(1, count)) + ", " + millis(time)
+        + " ms (" + String.format("%.0f", time / (double) Math.max(1, count))
+        + " ns/pair)");
+  }
+
+  // EFFECT: generates a maze line by line straight into a file, printing the time
+  static void runStream(String[] args) throws IOException {
+    if (args.length < 5) {
+      throw new IllegalArgumentException("expected rows, columns, seed and a file");
+    }
+    int rows = Integer.parseInt(args[1]);
+    int columns = Integer.parseInt(args[2]);
+    long seed = Long.parseLong(args[3]);
+    if (rows < 1 || columns < 1) {
+      throw new IllegalArgumentException("rows and columns must be at least 1");
+    }
+    EllerGenerator generator = new EllerGenerator(rows, columns, new Random(seed));
+    long start = System.nanoTime();
+    try (MazeFileWriter writer = new MazeFileWriter(Paths.get(args[4]), rows, columns, seed)) {
+      generator.generate(writer);
+    }
+    System.out.println("streamed " + rows + "x" + columns + " maze (seed " + seed + ") to "
+        + args[4] + " in " + millis(System.nanoTime() - start) + " ms");
+  }
+
+  // EFFECT: runs the searches named in args from index first on, or all four if there
+  // are none, printing the length, cells expanded and time of each
+  static void runSearches(MazeEngine engine, String[] args, int first) {
+    String[] searches = new String[] {"bfs", "dfs", "astar", "two-way"};
+    if (args.length > first) {
+      searches = new String[args.length - first];
+      System.arraycopy(args, first, searches, 0, searches.length);
+    }
+    long start;
+    for (String search : searches) {
+      start = System.nanoTime();
+      int[] path = engine.solve(search);
+      long time = System.nanoTime() - start;
+      String found = "no solution";
+      if (path != null) {
+        found = "solution length " + engine.solutionLength(path);
+      }
+      System.out.println(search + ": " + found + ", " + engine.nodesExpanded
+          + " cells expanded, " + millis(time) + " ms");
+    }
+  }
+
+  // EFFECT: generates the mazes for a range of seeds in parallel, printing the throughput
+  static void runBatch(String[] args) {
+    if (args.length < 5) {
+      throw new IllegalArgumentException("expected rows, columns, fromSeed and toSeed");
+    }
+    int rows = Integer.parseInt(args[1]);
+    int columns = Integer.parseInt(args[2]);
+    long fromSeed = Long.parseLong(args[3]);
+    long toSeed = Long.parseLong(args[4]);
+    int threads = Runtime.getRuntime().availableProcessors();
+    if (args.length > 5) {
+      threads = Integer.parseInt(args[5]);
+    }
+    if (rows < 1 || columns < 1) {
+      throw new IllegalArgumentException("rows and columns must be at least 1");
+    }
+
+    long[] count = new long[1];
+    long start = System.nanoTime();
+    new MazeBatch(rows, columns, threads).generate(fromSeed, toSeed, m -> count[0]++);
+    long time = System.nanoTime() - start;
+    System.out.println("generated " + count[0] + " " + rows + "x" + columns + " mazes on "
+        + threads + " threads in " + millis(time) + " ms ("
+        + String.format("%.1f", count[0] / (time / 1e9)) + " mazes/s)");
+  }
+
+  // EFFECT: makes MazeMetrics visible over JMX, or says why it isn't
+  static void registerMetrics() {
+    try {
+      MazeMetrics.register();
+    }
+    catch (JMException e) {
+      System.err.println("metrics not visible over JMX: " + e.getMessage());
+    }
+  }
+
+  // EFFECT: starts a MazeServer, which keeps running until the program is stopped
+  static void runServer(String[] args) throws IOException {
+    int port = 8080;
+    if (args.length > 1) {
+      port = Integer.parseInt(args[1]);
+    }
+    int threads = Runtime.getRuntime().availableProcessors();
+    if (args.length > 2) {
+      threads = Integer.parseInt(args[2]);
+    }
+    // up to 16 mazes of 4 million cells, about 80 MB each
+    MazeServer server = new MazeServer(port, threads, 4000000, 16);
+    // recording stays off until it is switched on over JMX
+    registerMetrics();
+    server.start();
+    System.out.println("serving mazes on http://127.0.0.1:" + server.port() + " with "
+        + threads + " threads");
+  }
+
+  // EFFECT: sends requests to a running MazeServer, printing their throughput and latency
+  static void runLoadClient(String[] args) throws InterruptedException {
+    if (args.length < 7) {
+      throw new IllegalArgumentException(
+          "expected port, requests, inFlight, rows, columns and seeds");
+    }
+    int port = Integer.parseInt(args[1]);
+    int requests = Integer.parseInt(args[2]);
+    int inFlight = Integer.parseInt(args[3]);
+    int rows = Integer.parseInt(args[4]);
+    int columns = Integer.parseInt(args[5]);
+    int seeds = Integer.parseInt(args[6]);
+    String endpoint = "solve";
+    if (args.length > 7) {
+      endpoint = args[7];
+    }
+    if (seeds < 1) {
+      throw new IllegalArgumentException("seeds must be at least 1");
+    }
+    MazeLoadClient client = new MazeLoadClient(port, inFlight);
+    // a first round lets the server generate the mazes and warm up
+    client.run(endpoint, Math.min(requests, seeds), rows, columns, seeds);
+    System.out.println(endpoint + ": " + client.run(endpoint, requests, rows, columns, seeds));
+  }
+
+  // formats a duration in nanoseconds as milliseconds
+  static String millis(long nanos) {
+    return String.format("%.1f", nanos / 1e6);
+  }
+}
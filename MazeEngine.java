@@ -0,0 +1,589 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Generates and solves a maze without drawing it
+// the board is rows cells wide and columns cells tall (see Maze)
+// cell (x, y) has index x * columns + y, and vertex (x, y), the top left corner of
+// that cell, has index x * (columns + 1) + y
+// every edge (a wall between two neighboring vertices) is identified by its first
+// vertex and its direction: id 2 * v goes down from v, id 2 * v + 1 goes right from v
+class MazeEngine {
+  // bits of a cell's wall mask
+  static final byte TOP = 1;
+  static final byte LEFT = 2;
+  static final byte RIGHT = 4;
+  static final byte BOTTOM = 8;
+
+  int rows; // num cells across
+  int columns; // num cells down
+  Random r;
+  int[] edges; // ids of all possible edges on board, sorted by weight once generated
+  int edgeCount; // number of ids in edges
+  byte[] weights; // weight of each edge, indexed by edge id
+  UnionFind representatives; // disjoint sets of vertices
+  int[] tree; // ids of the edges that form the maze, in the order they were accepted
+  byte[] walls; // walls around each cell, indexed by cell
+  int nodesExpanded; // number of cells the last search expanded
+  long seed; // seed r was made from, if known
+  boolean seeded; // is the seed known?
+
+  MazeEngine(int rows, int columns, Random r) {
+    this.rows = rows;
+    this.columns = columns;
+    this.r = r;
+    generate();
+  }
+
+  // generates the same maze as new Random(seed) would, but knows its seed, so it can be
+  // told apart in recordings (see MazeGenerationEvent)
+  MazeEngine(int rows, int columns, long seed) {
+    this.rows = rows;
+    this.columns = columns;
+    this.r = new Random(seed);
+    this.seed = seed;
+    this.seeded = true;
+    generate();
+  }
+
+  // a maze whose walls come from somewhere else, like a file (see MappedMaze)
+  MazeEngine(int rows, int columns) {
+    this.rows = rows;
+    this.columns = columns;
+    this.nodesExpanded = 0;
+  }
+
+  // generates the maze in tiles on several threads, see generateTiled
+  MazeEngine(int rows, int columns, Random r, int tiles) {
+    this.rows = rows;
+    this.columns = columns;
+    this.r = r;
+    generateTiled(tiles);
+  }
+
+  // generates the maze in tiles from a known seed
+  MazeEngine(int rows, int columns, long seed, int tiles) {
+    this.rows = rows;
+    this.columns = columns;
+    this.r = new Random(seed);
+    this.seed = seed;
+    this.seeded = true;
+    generateTiled(tiles);
+  }
+
+  // EFFECT: generates the maze using Kruskals Algorithm
+  // the phases are only timed if MazeMetrics or a flight recording wants them
+  void generate() {
+    MazeGenerationEvent event = new MazeGenerationEvent();
+    event.begin();
+    boolean timed = MazeMetrics.enabled || event.isEnabled();
+    long start = timed ? System.nanoTime() : 0;
+    this.representatives = new UnionFind(vertexCount());
+    initEdges();
+    long edgesDone = timed ? System.nanoTime() : 0;
+    sortEdges();
+    long sortDone = timed ? System.nanoTime() : 0;
+    calculateEdges();
+    long treeDone = timed ? System.nanoTime() : 0;
+    initWalls();
+    long wallsDone = timed ? System.nanoTime() : 0;
+    this.nodesExpanded = 0;
+
+    if (MazeMetrics.enabled) {
+      MazeMetrics.phase("engine.initEdges", edgesDone - start);
+      MazeMetrics.phase("engine.sortEdges", sortDone - edgesDone);
+      MazeMetrics.phase("engine.calculateEdges", treeDone - sortDone);
+      MazeMetrics.phase("engine.initWalls", wallsDone - treeDone);
+    }
+    if (event.shouldCommit()) {
+      fill(event, 0);
+      event.initEdges = edgesDone - start;
+      event.sortEdges = sortDone - edgesDone;
+      event.calculateEdges = treeDone - sortDone;
+      event.initWalls = wallsDone - treeDone;
+      event.commit();
+    }
+  }
+
+  // EFFECT: fills in what the event knows about the maze
+  void fill(MazeGenerationEvent event, int tiles) {
+    event.rows = this.rows;
+    event.columns = this.columns;
+    event.seed = this.seed;
+    event.seeded = this.seeded;
+    event.tiles = tiles;
+  }
+
+  // EFFECT: generates a maze using Kruskals Algorithm on the given number of tiles at
+  // once, then stitches the tiles together (see TiledGenerator)
+  // this makes a different maze than generate for the same Random, and leaves no edges
+  // behind, only the tree
+  // the tiles share one UnionFind, so only the phases are timed, not its work
+  void generateTiled(int tiles) {
+    MazeGenerationEvent event = new MazeGenerationEvent();
+    event.begin();
+    boolean timed = MazeMetrics.enabled || event.isEnabled();
+    long start = timed ? System.nanoTime() : 0;
+    new TiledGenerator(this, tiles).generate();
+    long treeDone = timed ? System.nanoTime() : 0;
+    initWalls();
+    long wallsDone = timed ? System.nanoTime() : 0;
+    this.nodesExpanded = 0;
+
+    if (MazeMetrics.enabled) {
+      MazeMetrics.phase("engine.generateTiled", treeDone - start);
+      MazeMetrics.phase("engine.initWalls", wallsDone - treeDone);
+    }
+    if (event.shouldCommit()) {
+      fill(event, tiles);
+      event.calculateEdges = treeDone - start;
+      event.initWalls = wallsDone - treeDone;
+      event.commit();
+    }
+  }
+
+  // returns the number of vertices on the board
+  int vertexCount() {
+    return (this.rows + 1) * (this.columns + 1);
+  }
+
+  // returns the number of cells on the board
+  int cellCount() {
+    return this.rows * this.columns;
+  }
+
+  // returns the x position of the vertex, counted in cells
+  int vertexX(int v) {
+    return v / (this.columns + 1);
+  }
+
+  // returns the y position of the vertex, counted in cells
+  int vertexY(int v) {
+    return v % (this.columns + 1);
+  }
+
+  // returns the first (top or left) vertex of the edge
+  int edgeVertex1(int id) {
+    return id >> 1;
+  }
+
+  // returns the second (bottom or right) vertex of the edge
+  int edgeVertex2(int id) {
+    if (isHorizontal(id)) {
+      return (id >> 1) + this.columns + 1;
+    }
+    else {
+      return (id >> 1) + 1;
+    }
+  }
+
+  // is the edge a horizontal line?
+  boolean isHorizontal(int id) {
+    return (id & 1) == 1;
+  }
+
+  // EFFECT: creates all the edges in the board
+  // walks the vertices in index order, so the neighbours of the vertex at index v
+  // are v + 1 (below) and v + columns + 1 (to the right)
+  void initEdges() {
+    int stride = this.columns + 1;
+    this.edges = new int[this.rows * stride + (this.rows + 1) * this.columns];
+    this.edgeCount = 0;
+    this.weights = new byte[2 * vertexCount()];
+    for (int x = 0; x < this.rows + 1; x++) {
+      for (int y = 0; y < this.columns + 1; y++) {
+        int v = x * stride + y;
+
+        // weights prioritize edges of the board (1), then randomly select edges in the
+        // middle (2 - 6)
+
+        // right border
+        if (x == this.rows && y < this.columns) {
+          addEdge(2 * v, 1);
+        }
+        // top border
+        else if (x < this.rows && y == 0) {
+          addEdge(2 * v + 1, 1);
+          addEdge(2 * v, r.nextInt(5) + 2);
+        }
+        // left border
+        else if (x == 0 && y < this.columns) {
+          addEdge(2 * v + 1, r.nextInt(5) + 2);
+          addEdge(2 * v, 1);
+        }
+        // bottom border
+        else if (x < this.rows && y == this.columns) {
+          addEdge(2 * v + 1, 1);
+        }
+        // middle spaces
+        else if (x < this.rows && y < this.columns) {
+          addEdge(2 * v + 1, r.nextInt(5) + 2);
+          addEdge(2 * v, r.nextInt(5) + 2);
+        }
+      }
+    }
+  }
+
+  // EFFECT: adds the edge with the given id and weight to the board
+  void addEdge(int id, int weight) {
+    this.edges[this.edgeCount] = id;
+    this.edgeCount++;
+    this.weights[id] = (byte) weight;
+  }
+
+  // EFFECT: sorts the edges by weight, so Kruskal's algorithm considers them in order
+  void sortEdges() {
+    this.edges = sortByWeight(this.edges, this.edgeCount, this.weights, this.r);
+  }
+
+  // returns the first count ids sorted by their weights
+  // weights only take a handful of values, so the ids are bucketed by weight in
+  // linear time; ids of the same weight are shuffled so ties are broken randomly
+  static int[] sortByWeight(int[] ids, int count, byte[] weights, Random r) {
+    int maxWeight = 0;
+    for (int i = 0; i < count; i++) {
+      maxWeight = Math.max(maxWeight, weights[ids[i]]);
+    }
+
+    // starts[w] is the index where the ids with weight w begin
+    int[] starts = new int[maxWeight + 2];
+    for (int i = 0; i < count; i++) {
+      starts[weights[ids[i]] + 1]++;
+    }
+    for (int w = 1; w < starts.length; w++) {
+      starts[w] += starts[w - 1];
+    }
+
+    int[] sorted = new int[ids.length];
+    int[] next = Arrays.copyOf(starts, starts.length);
+    for (int i = 0; i < count; i++) {
+      int id = ids[i];
+      sorted[next[weights[id]]++] = id;
+    }
+    for (int w = 0; w <= maxWeight; w++) {
+      for (int i = starts[w + 1] - 1; i > starts[w]; i--) {
+        int j = starts[w] + r.nextInt(i - starts[w] + 1);
+        int temp = sorted[i];
+        sorted[i] = sorted[j];
+        sorted[j] = temp;
+      }
+    }
+    return sorted;
+  }
+
+  // EFFECT: chooses the walls of the maze using Kruskals Algorithm
+  void calculateEdges() {
+    int numEdges = 0;
+    int i = 0;
+    // counted here rather than in the UnionFind, which the tiles of generateTiled share
+    boolean counting = MazeMetrics.enabled;
+    long findHops = 0;
+    this.representatives.reset();
+    this.tree = new int[vertexCount()];
+    while (numEdges < vertexCount() - 1) { // min. edges = vertices - 1
+      int curr = this.edges[i];
+      i++;
+      int v1 = edgeVertex1(curr);
+      int v2 = edgeVertex2(curr);
+      if (counting) {
+        findHops += this.representatives.hops(v1) + this.representatives.hops(v2);
+      }
+      // if two vertices have the same representative, they are already connected, so
+      // the edge is left out
+      if (this.representatives.union(v1, v2)) {
+        this.tree[numEdges] = curr;
+        numEdges++;
+      }
+    }
+    // the left wall of the start closes the border, so it is never chosen above
+    this.weights[0] = 1;
+    this.tree[numEdges] = 0;
+    // every edge examined is tried with one union
+    MazeMetrics.add("edgesExamined", i);
+    MazeMetrics.add("unions", i);
+    MazeMetrics.add("findHops", findHops);
+  }
+
+  // EFFECT: records the walls around each cell
+  void initWalls() {
+    this.walls = new byte[cellCount()];
+    for (int id : this.tree) {
+      int v = edgeVertex1(id);
+      int x = vertexX(v);
+      int y = vertexY(v);
+      if (isHorizontal(id)) {
+        if (y < this.columns) {
+          this.walls[x * this.columns + y] |= TOP;
+        }
+        if (y > 0) {
+          this.walls[x * this.columns + y - 1] |= BOTTOM;
+        }
+      }
+      else {
+        if (x < this.rows) {
+          this.walls[x * this.columns + y] |= LEFT;
+        }
+        if (x > 0) {
+          this.walls[(x - 1) * this.columns + y] |= RIGHT;
+        }
+      }
+    }
+  }
+
+  // returns the neighbor of the cell in the given direction (0 top, 1 left, 2 right,
+  // 3 bottom) if there is no wall in between, otherwise -1
+  int openNeighbor(int cell, int dir) {
+    int x = cell / this.columns;
+    int y = cell % this.columns;
+    if (dir == 0 && y > 0 && (this.walls[cell] & TOP) == 0) {
+      return cell - 1;
+    }
+    if (dir == 1 && x > 0 && (this.walls[cell] & LEFT) == 0) {
+      return cell - this.columns;
+    }
+    if (dir == 2 && x < this.rows - 1 && (this.walls[cell] & RIGHT) == 0) {
+      return cell + this.columns;
+    }
+    if (dir == 3 && y < this.columns - 1 && (this.walls[cell] & BOTTOM) == 0) {
+      return cell + 1;
+    }
+    return -1;
+  }
+
+  // returns the number of steps between the two cells if there were no walls
+  int manhattan(int cell1, int cell2) {
+    return Math.abs(cell1 / this.columns - cell2 / this.columns)
+        + Math.abs(cell1 % this.columns - cell2 % this.columns);
+  }
+
+  // finds a solution to the maze using breadth first search
+  int[] bfs() {
+    return searchHelp(new IntQueue(this.rows + this.columns));
+  }
+
+  // finds a solution to the maze using depth first search
+  int[] dfs() {
+    return searchHelp(new IntStack(this.rows + this.columns));
+  }
+
+  // finds the same solution as bfs, expanding each level of the search on all the
+  // threads of the common fork-join pool, see ParallelBfs
+  int[] parallelBfs() {
+    long time = MazeMetrics.start();
+    int[] path = new ParallelBfs(this, ForkJoinPool.commonPool()).search();
+    MazeMetrics.lap("engine.parallelBfs", time);
+    MazeMetrics.add("cellsExpanded", this.nodesExpanded);
+    return path;
+  }
+
+  // runs the named search (bfs, dfs, astar, two-way or parallel-bfs), returns the path
+  // it finds
+  // EFFECT: records the search as a MazeSolveEvent, if a flight recording wants it
+  int[] solve(String search) {
+    MazeSolveEvent event = new MazeSolveEvent();
+    event.begin();
+    int[] path = search(search);
+    if (event.shouldCommit()) {
+      event.algorithm = search;
+      event.rows = this.rows;
+      event.columns = this.columns;
+      event.cellsExpanded = this.nodesExpanded;
+      event.pathLength = path == null ? 0 : solutionLength(path);
+      event.commit();
+    }
+    return path;
+  }
+
+  // returns the path the named search finds
+  int[] search(String search) {
+    if (search.equals("bfs")) {
+      return bfs();
+    }
+    else if (search.equals("dfs")) {
+      return dfs();
+    }
+    else if (search.equals("astar")) {
+      return astar();
+    }
+    else if (search.equals("two-way")) {
+      return bidirectional();
+    }
+    else if (search.equals("parallel-bfs")) {
+      return parallelBfs();
+    }
+    else {
+      throw new IllegalArgumentException("unknown search: " + search);
+    }
+  }
+
+  // returns the number of cells on the solution a search found, counting the start and
+  // the finish
+  int solutionLength(int[] path) {
+    if (cellCount() == 1) {
+      return 1;
+    }
+    else {
+      return path.length + 2;
+    }
+  }
+
+  // executes the search for dfs and bfs
+  // every search returns the cells on the path, from the cell before the finish back to
+  // the cell after the start, or null if there is no path
+  int[] searchHelp(IIntCollection worklist) {
+    long time = MazeMetrics.start();
+    SearchStepper search = new SearchStepper(this, worklist);
+    search.step(Integer.MAX_VALUE, null);
+    this.nodesExpanded = search.expanded;
+    MazeMetrics.lap("engine.searchHelp", time);
+    MazeMetrics.add("cellsExpanded", search.expanded);
+    MazeMetrics.max("worklistPeak", search.worklistPeak);
+    return search.path;
+  }
+
+  // returns the path from the cell before the end back to the cell after the start
+  int[] reconstruct(int[] cameFromCell, int end) {
+    int length = 0;
+    for (int c = cameFromCell[end]; c != 0; c = cameFromCell[c]) {
+      length++;
+    }
+    int[] path = new int[length];
+    int i = 0;
+    for (int c = cameFromCell[end]; c != 0; c = cameFromCell[c]) {
+      path[i] = c;
+      i++;
+    }
+    return path;
+  }
+
+  // finds a solution to the maze using A* search, guided by the manhattan distance to
+  // the finish, which never overestimates the length of the remaining path
+  int[] astar() {
+    int n = cellCount();
+    BitSet alreadySeen = new BitSet(n);
+    int[] cameFromCell = new int[n];
+    int[] distance = new int[n]; // steps from the start, valid once a cell is in the heap
+    IntHeap worklist = new IntHeap(Math.max(1, this.rows + this.columns));
+    this.nodesExpanded = 0;
+
+    worklist.add(0, manhattan(0, n - 1));
+    while (!worklist.isEmpty()) {
+      int next = worklist.remove();
+      if (next == n - 1) {
+        return reconstruct(cameFromCell, next);
+      }
+      else if (alreadySeen.get(next)) {
+        // do nothing: already expanded through a shorter path
+      }
+      else {
+        this.nodesExpanded++;
+        alreadySeen.set(next);
+        for (int dir = 0; dir < 4; dir++) {
+          int neighbor = openNeighbor(next, dir);
+          if (neighbor >= 0 && !alreadySeen.get(neighbor)) {
+            cameFromCell[neighbor] = next;
+            distance[neighbor] = distance[next] + 1;
+            worklist.add(neighbor, distance[neighbor] + manhattan(neighbor, n - 1));
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  // finds a solution to the maze using breadth first search from the start and the
+  // finish at the same time, one level at a time from whichever side has the smaller
+  // frontier, until the two searches meet
+  int[] bidirectional() {
+    int n = cellCount();
+    this.nodesExpanded = 0;
+    if (n == 1) {
+      return new int[0];
+    }
+    // side[i] is 1 if the start search has reached cell i, 2 for the finish search
+    byte[] side = new byte[n];
+    int[] cameFromStart = new int[n];
+    int[] cameFromEnd = new int[n];
+    int[] startFrontier = new int[n];
+    int[] endFrontier = new int[n];
+    int[] next = new int[n];
+    int startSize = 1;
+    int endSize = 1;
+    startFrontier[0] = 0;
+    endFrontier[0] = n - 1;
+    side[0] = 1;
+    side[n - 1] = 2;
+
+    while (startSize > 0 && endSize > 0) {
+      boolean fromStart = startSize <= endSize;
+      int[] level = fromStart ? startFrontier : endFrontier;
+      int levelSize = fromStart ? startSize : endSize;
+      int[] cameFrom = fromStart ? cameFromStart : cameFromEnd;
+      byte mine = (byte) (fromStart ? 1 : 2);
+      int nextSize = 0;
+      for (int k = 0; k < levelSize; k++) {
+        int i = level[k];
+        this.nodesExpanded++;
+        for (int dir = 0; dir < 4; dir++) {
+          int j = openNeighbor(i, dir);
+          if (j < 0) {
+            // wall in the way
+          }
+          else if (side[j] == 0) {
+            side[j] = mine;
+            cameFrom[j] = i;
+            next[nextSize] = j;
+            nextSize++;
+          }
+          else if (side[j] != mine) {
+            // the searches meet between i and j
+            if (fromStart) {
+              return joinPaths(cameFromStart, cameFromEnd, i, j);
+            }
+            else {
+              return joinPaths(cameFromStart, cameFromEnd, j, i);
+            }
+          }
+        }
+      }
+      // the finished level's array is reused for the level after next
+      if (fromStart) {
+        startFrontier = next;
+        startSize = nextSize;
+      }
+      else {
+        endFrontier = next;
+        endSize = nextSize;
+      }
+      next = level;
+    }
+    return null;
+  }
+
+  // returns the path through the start side cell a and the finish side cell b,
+  // from the cell before the finish back to the cell after the start
+  int[] joinPaths(int[] cameFromStart, int[] cameFromEnd, int a, int b) {
+    int end = cellCount() - 1;
+    int fromEnd = 0;
+    for (int c = b; c != end; c = cameFromEnd[c]) {
+      fromEnd++;
+    }
+    int fromStart = 0;
+    for (int c = a; c != 0; c = cameFromStart[c]) {
+      fromStart++;
+    }
+    int[] path = new int[fromEnd + fromStart];
+    int i = fromEnd - 1;
+    for (int c = b; c != end; c = cameFromEnd[c]) {
+      path[i] = c;
+      i--;
+    }
+    i = fromEnd;
+    for (int c = a; c != 0; c = cameFromStart[c]) {
+      path[i] = c;
+      i++;
+    }
+    return path;
+  }
+}
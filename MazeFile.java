@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Saves and loads mazes in a compact binary format
+// the file starts with a header: MAGIC, then rows and columns (ints), then the seed the
+// maze was generated from (a long), all big endian
+// after that, every cell takes two bits, packed four cells to a byte in cell index order
+// (see MazeEngine): the low bit is set if the cell has a wall on its right, the high bit
+// if it has a wall at its bottom; the top and left walls are the bottom and right walls
+// of the neighbors, and the border is always closed, so nothing else needs storing
+class MazeFile {
+  static final int MAGIC = 0x4D415A45; // "MAZE"
+  static final int HEADER = 20; // bytes before the first cell
+  static final int RIGHT_BIT = 1;
+  static final int BOTTOM_BIT = 2;
+
+  // returns the size of the file for a maze with the given number of cells
+  static long fileSize(long cells) {
+    return HEADER + (cells + 3) / 4;
+  }
+
+  // returns the two wall bits stored for a cell with the given wall mask
+  static int bits(byte walls) {
+    int bits = 0;
+    if ((walls & MazeEngine.RIGHT) != 0) {
+      bits |= RIGHT_BIT;
+    }
+    if ((walls & MazeEngine.BOTTOM) != 0) {
+      bits |= BOTTOM_BIT;
+    }
+    return bits;
+  }
+
+  // EFFECT: writes the header of a maze file to the start of the buffer
+  static void putHeader(ByteBuffer buffer, int rows, int columns, long seed) {
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, rows);
+    buffer.putInt(8, columns);
+    buffer.putLong(12, seed);
+  }
+
+  // EFFECT: saves the maze, generated from the given seed, to the file
+  static void save(Path file, MazeEngine engine, long seed) throws IOException {
+    long size = fileSize(engine.cellCount());
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      write(channel.map(FileChannel.MapMode.READ_WRITE, 0, size), engine, seed);
+    }
+  }
+
+  // EFFECT: writes the maze, generated from the given seed, to the start of the buffer,
+  // which holds at least fileSize(engine.cellCount()) bytes
+  static void write(ByteBuffer buffer, MazeEngine engine, long seed) {
+    putHeader(buffer, engine.rows, engine.columns, seed);
+    int cells = engine.cellCount();
+    for (int cell = 0; cell < cells; cell += 4) {
+      int packed = 0;
+      for (int i = 0; i < 4 && cell + i < cells; i++) {
+        packed |= bits(engine.walls[cell + i]) << (2 * i);
+      }
+      buffer.put(HEADER + cell / 4, (byte) packed);
+    }
+  }
+
+  // returns the maze in the file, read straight from the file's pages, without
+  // reading the cells up front
+  static MappedMaze load(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER) {
+        throw new IOException(file + " is not a maze file");
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          channel.size());
+      if (buffer.getInt(0) != MAGIC) {
+        throw new IOException(file + " is not a maze file");
+      }
+      int rows = buffer.getInt(4);
+      int columns = buffer.getInt(8);
+      if (rows < 1 || columns < 1
+          || channel.size() < fileSize((long) rows * columns)) {
+        throw new IOException(file + " is not a maze file");
+      }
+      return new MappedMaze(rows, columns, buffer.getLong(12), buffer);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Writes a MazeFile one line of cells at a time, as they are generated
+// the cells go out through a small buffer, so the file can be bigger than memory
+class MazeFileWriter implements LineSink, AutoCloseable {
+  FileChannel channel;
+  ByteBuffer buffer; // bytes waiting to be written
+  int packed; // bits of the cells not yet written
+  int packedCells; // number of cells in packed
+
+  MazeFileWriter(Path file, int rows, int columns, long seed) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    this.buffer = ByteBuffer.allocateDirect(1 << 16);
+    MazeFile.putHeader(this.buffer, rows, columns, seed);
+    this.buffer.position(MazeFile.HEADER);
+    this.packed = 0;
+    this.packedCells = 0;
+  }
+
+  // EFFECT: adds the bits of the cells on the line to the file
+  public void line(int x, byte[] walls) throws IOException {
+    for (byte w : walls) {
+      this.packed |= MazeFile.bits(w) << (2 * this.packedCells);
+      this.packedCells++;
+      if (this.packedCells == 4) {
+        put();
+      }
+    }
+  }
+
+  // EFFECT: moves the packed cells to the buffer, writing the buffer out once it fills
+  void put() throws IOException {
+    this.buffer.put((byte) this.packed);
+    this.packed = 0;
+    this.packedCells = 0;
+    if (!this.buffer.hasRemaining()) {
+      flush();
+    }
+  }
+
+  // EFFECT: writes out the buffer
+  void flush() throws IOException {
+    this.buffer.flip();
+    while (this.buffer.hasRemaining()) {
+      this.channel.write(this.buffer);
+    }
+    this.buffer.clear();
+  }
+
+  // EFFECT: writes out the cells that are left and closes the file
+  public void close() throws IOException {
+    if (this.packedCells > 0) {
+      put();
+    }
+    flush();
+    this.channel.close();
+  }
+}
@@ -0,0 +1,21 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// One frame drawn by Maze.makeScene
+@Name("maze.Frame")
+@Label("Maze Frame")
+@Category("Maze")
+class MazeFrameEvent extends Event {
+  @Label("Cells Drawn")
+  int cellsDrawn;
+
+  @Label("Walls Drawn")
+  int wallsDrawn;
+
+  @Label("Full Redraw")
+  @Description("Was the board drawn from scratch?")
+  boolean fullRedraw;
+}
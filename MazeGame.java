@@ -1,10 +1,29 @@
 import java.awt.Color;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import javalib.impworld.World;
 import javalib.impworld.WorldScene;
@@ -14,77 +33,261 @@ import javalib.worldimages.Posn;
 import javalib.worldimages.RectangleImage;
 import javalib.worldimages.TextImage;
 import javalib.worldimages.WorldImage;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import tester.Tester;
 
 
+// The cells of the board, kept as arrays indexed like MazeEngine's cells instead of as
+// one object per cell: a byte of color per cell, with the walls read from the engine's
+// wall masks, so a board costs a few bytes a cell however big it gets
+// Cell and Edge objects are only made when something asks for one, as views onto it
+class Board {
+  // the colors a cell can have; a cell keeps the index of its color
+  static final Color[] PALETTE = {Color.white, Color.green, Color.magenta, Color.red,
+      Color.yellow, Color.cyan, Color.orange, Color.black, Color.blue};
+
+  MazeEngine engine; // walls of the maze
+  int cellSize; // width of a cell
+  byte[] colors; // index in PALETTE of the color of each cell
+  BitSet dirty; // cells waiting in dirtyCells to be drawn again
+  IntQueue dirtyCells; // cells whose color changed since the scene was drawn
+
+  Board(MazeEngine engine, int cellSize) {
+    this.engine = engine;
+    this.cellSize = cellSize;
+    int n = engine.cellCount();
+    this.colors = new byte[n];
+    // starting tile and finish tile
+    this.colors[0] = paletteIndex(Color.green);
+    this.colors[n - 1] = paletteIndex(Color.magenta);
+    this.dirty = new BitSet(n);
+    this.dirtyCells = new IntQueue(16);
+  }
+
+  // returns the index of the color in PALETTE
+  static byte paletteIndex(Color c) {
+    for (int i = 0; i < PALETTE.length; i++) {
+      if (PALETTE[i].equals(c)) {
+        return (byte) i;
+      }
+    }
+    throw new IllegalArgumentException("cells can't be colored " + c);
+  }
+
+  // returns the number of cells on the board
+  int cellCount() {
+    return this.colors.length;
+  }
+
+  // returns a view of the cell with the given index
+  Cell cell(int index) {
+    return new Cell(this, index);
+  }
+
+  // returns the color of the cell
+  Color color(int cell) {
+    return PALETTE[this.colors[cell]];
+  }
+
+  // sets the color of the cell
+  // EFFECT: marks the cell to be drawn again
+  void setColor(int cell, Color c) {
+    this.colors[cell] = paletteIndex(c);
+    if (!this.dirty.get(cell)) {
+      this.dirty.set(cell);
+      this.dirtyCells.add(cell);
+    }
+  }
+
+  // returns the next cell to be drawn again
+  // EFFECT: takes it off the cells waiting to be drawn
+  int takeDirty() {
+    int cell = this.dirtyCells.remove();
+    this.dirty.clear(cell);
+    return cell;
+  }
+
+  // returns the id of the engine edge on the given side of the cell (0 top, 1 left,
+  // 2 right, 3 bottom, like MazeEngine.openNeighbor), or -1 if there is no wall there
+  int wall(int cell, int dir) {
+    int columns = this.engine.columns;
+    // index of the top left vertex of the cell
+    int v = (cell / columns) * (columns + 1) + cell % columns;
+    if (dir == 0 && (this.engine.walls[cell] & MazeEngine.TOP) != 0) {
+      return 2 * v + 1;
+    }
+    if (dir == 1 && (this.engine.walls[cell] & MazeEngine.LEFT) != 0) {
+      return 2 * v;
+    }
+    if (dir == 2 && (this.engine.walls[cell] & MazeEngine.RIGHT) != 0) {
+      return 2 * (v + columns + 1);
+    }
+    if (dir == 3 && (this.engine.walls[cell] & MazeEngine.BOTTOM) != 0) {
+      return 2 * (v + 1) + 1;
+    }
+    return -1;
+  }
+
+  // returns the position of the vertex with the given index on the board
+  Posn vertex(int v) {
+    return new Posn(this.engine.vertexX(v) * this.cellSize,
+        this.engine.vertexY(v) * this.cellSize);
+  }
+
+  // returns a view of the engine edge with the given id
+  Edge edge(int id) {
+    return new Edge(vertex(this.engine.edgeVertex1(id)), vertex(this.engine.edgeVertex2(id)),
+        this.engine.weights[id]);
+  }
+}
+
+// A cell of the board, as a view onto the Board: two cells are the same if they are
+// the same cell of the same board
 class Cell {
-  int cellSize; // width of the cell
+  Board board; // board the cell is on
+  int index; // index of the cell, as the engine numbers cells
   int x; // x value of the top left corner
   int y; // y value of the top left corner
-  Color color; // fill color
-  Cell cleft; // adjacent left cell
-  Cell ctop; // adjacent top cell
-  Cell cright; //  adjacent right cell
-  Cell cbottom; // adjacent bottom cell
-  Edge eleft; // left edge
-  Edge etop; // top edge
-  Edge eright; // right edge
-  Edge ebottom; // bottom edge
-  Posn posn; // center point
-
-  Cell(int x, int y, int cellSize) {
-    this.x = x;
-    this.y = y;
-    this.cellSize = cellSize;
-    this.color = Color.white;
-    this.posn = new Posn(this.x, this.y);
-    this.cleft = null;
-    this.cright = null;
-    this.ctop = null;
-    this.cbottom = null;
-    this.eleft = null;
-    this.eright = null;
-    this.etop = null;
-    this.ebottom = null;
+
+  Cell(Board board, int index) {
+    this.board = board;
+    this.index = index;
+    this.x = index / board.engine.columns;
+    this.y = index % board.engine.columns;
   }
 
-  // convenience constructor
-  Cell(int x, int y, int cellSize, Color color) {
-    this(x, y, cellSize);
-    this.color = color;
+  // returns the fill color
+  Color color() {
+    return this.board.color(this.index);
   }
 
   // draws a single cell
   WorldImage drawCell() {
-    return new RectangleImage(this.cellSize, this.cellSize, OutlineMode.SOLID, this.color);
+    return Images.cell(this.board.cellSize, this.color());
   }
 
   // sets the color of the cell
+  // EFFECT: marks the cell to be drawn again
   void changeColor(Color c) {
-    this.color = c;
+    this.board.setColor(this.index, c);
+  }
+
+  // is the cell waiting to be drawn again?
+  boolean isDirty() {
+    return this.board.dirty.get(this.index);
+  }
+
+  // returns the adjacent cell in the given direction (0 top, 1 left, 2 right, 3 bottom),
+  // or null on the edge of the board
+  Cell neighbor(int dir) {
+    MazeEngine engine = this.board.engine;
+    if (dir == 0 && this.y > 0) {
+      return this.board.cell(this.index - 1);
+    }
+    if (dir == 1 && this.x > 0) {
+      return this.board.cell(this.index - engine.columns);
+    }
+    if (dir == 2 && this.x < engine.rows - 1) {
+      return this.board.cell(this.index + engine.columns);
+    }
+    if (dir == 3 && this.y < engine.columns - 1) {
+      return this.board.cell(this.index + 1);
+    }
+    return null;
   }
 
-  // fills top/bottom/left/right cell if
+  // returns the wall on the given side of the cell (0 top, 1 left, 2 right, 3 bottom),
+  // or null if there is none
+  Edge wall(int dir) {
+    int id = this.board.wall(this.index, dir);
+    if (id == -1) {
+      return null;
+    }
+    return this.board.edge(id);
+  }
+
+  // fills top/bottom/left/right cell if there is no wall in between
+  // returns the filled cell, or this cell if it can't move that way
   Cell fillNextCell(String s) {
-    if (s.equals("up") && this.etop == null && this.ctop != null) {
-      this.ctop.color = Color.red;
-      return this.ctop;
+    int dir;
+    if (s.equals("up")) {
+      dir = 0;
     }
-    if (s.equals("down") && this.ebottom == null && this.cbottom != null) {
-      this.cbottom.color = Color.red;
-      return this.cbottom;
+    else if (s.equals("left")) {
+      dir = 1;
     }
-    if (s.equals("left") && this.eleft == null && this.cleft != null) {
-      this.cleft.color = Color.red;
-      return this.cleft;
+    else if (s.equals("right")) {
+      dir = 2;
     }
-    if (s.equals("right") && this.eright == null && this.cright != null) {
-      this.cright.color = Color.red;
-      return this.cright;
+    else if (s.equals("down")) {
+      dir = 3;
     }
     else {
       return this;
     }
+    int next = this.board.engine.openNeighbor(this.index, dir);
+    if (next == -1) {
+      return this;
+    }
+    this.board.setColor(next, Color.red);
+    return this.board.cell(next);
+  }
+
+  // is the other object the same cell of the same board?
+  public boolean equals(Object other) {
+    if (!(other instanceof Cell)) {
+      return false;
+    }
+    Cell that = (Cell) other;
+    return this.board == that.board && this.index == that.index;
+  }
+
+  // returns a hash code consistent with equals
+  public int hashCode() {
+    return this.index;
+  }
+}
+
+// Images shared by everything drawn on the board
+// javalib images never change once made, so all cells of the same size and color, and
+// all walls of the same size and direction, are drawn with one image each
+class Images {
+  static HashMap<Integer, HashMap<Color, WorldImage>> cells =
+      new HashMap<Integer, HashMap<Color, WorldImage>>();
+  static HashMap<Integer, WorldImage> horizontalWalls = new HashMap<Integer, WorldImage>();
+  static HashMap<Integer, WorldImage> verticalWalls = new HashMap<Integer, WorldImage>();
+
+  // returns the image of a cell of the given size and color
+  static WorldImage cell(int cellSize, Color color) {
+    HashMap<Color, WorldImage> sized = cells.get(cellSize);
+    if (sized == null) {
+      sized = new HashMap<Color, WorldImage>();
+      cells.put(cellSize, sized);
+    }
+    WorldImage image = sized.get(color);
+    if (image == null) {
+      image = new RectangleImage(cellSize, cellSize, OutlineMode.SOLID, color);
+      sized.put(color, image);
+    }
+    return image;
+  }
+
+  // returns the image of a wall along one side of a cell of the given size
+  static WorldImage wall(int cellSize, boolean horizontal) {
+    HashMap<Integer, WorldImage> walls = horizontal ? horizontalWalls : verticalWalls;
+    WorldImage image = walls.get(cellSize);
+    if (image == null) {
+      if (horizontal) {
+        image = new LineImage(new Posn(cellSize, 0), Color.black);
+      }
+      else {
+        image = new LineImage(new Posn(0, cellSize), Color.black);
+      }
+      walls.put(cellSize, image);
+    }
+    return image;
   }
 }
 
@@ -121,26 +324,63 @@ class Maze extends World {
   int width; // of game board
   int height; // of game board
   Random r; 
-  ArrayList<Posn> vertices; // all vertices on board
-  ArrayList<Edge> allEdges; // all possible edges on board
-  ArrayList<Edge> edgesInTree; // all edges that form the maze
-  HashMap<Posn, Posn> representatives; // each vertex is a key, and its value is its representative
-  ArrayList<Cell> allCells; // all cells on the board
-  ArrayList<Cell> allVisitedCells; // all visited cells in search
-  ArrayList<Cell> currentPath; // current manual search path
+  MazeEngine engine; // generates and solves the maze
+  Board board; // colors of all cells on the board
+  IntStack visitedCells; // all visited cells in search
   boolean gameWon = false;
   Cell currentCell; // current cell in a manual maze
-
+  String lastSearch; // name of the last search that was run (see MazeEngine.solve), or null
+  WorldScene scene; // the board as last drawn, reused while only some cells change
+  int cellsRedrawn; // cells drawn on top of the scene since it was drawn from scratch
+  String drawnStatus; // status text on the scene, or null
+  boolean drawnGameOver; // is "Game Over!" on the scene?
+  SearchStepper search; // search being shown a few cells each tick, or null
+  int viewRows; // num cells across the part of the board on screen
+  int viewColumns; // num cells down the part of the board on screen
+  int viewX; // x of the leftmost cell on screen
+  int viewY; // y of the topmost cell on screen
+  int expansionsPerTick; // cells the search being shown expands each tick
+  long seed; // seed the maze was generated from, if seeded
+  boolean seeded; // was the maze generated from a known seed, so its solutions can be cached?
+  SolutionCache solutions; // solutions of the mazes generated from seeds, kept across resets
+  DistanceField toFinish; // distances to the finish, built the first time they are needed
+  Cell hint; // cell shown as the best next move, or null
+  Color hintColor; // color of the hint cell before it was shown
+  int cellsDrawn; // cells drawn by the last call to makeScene
+  int wallsDrawn; // walls drawn by the last call to makeScene
 
   Maze(int rows, int columns, Random r) {
     reset(rows, columns, r);
   }
 
+  Maze(int rows, int columns, long seed) {
+    reset(rows, columns, seed);
+  }
+
+  // reset the board to the maze generated from the seed
+  // its solutions are cached, and reused whenever the same maze comes back
+  void reset(int rows, int columns, long seed) {
+    this.seed = seed;
+    this.seeded = true;
+    initBoard(rows, columns, new Random(seed));
+  }
+
   // reset the board
   void reset(int rows, int columns, Random r) {
+    // nothing is known about r, so solutions of this maze can't be cached; the cached
+    // solutions all belong to mazes with known seeds, which never change
+    this.seeded = false;
+    initBoard(rows, columns, r);
+  }
+
+  // EFFECT: sets up a new board with a maze generated from r
+  void initBoard(int rows, int columns, Random r) {
     this.rows = rows;
     this.columns = columns;
     this.r = r;
+    if (this.solutions == null) {
+      this.solutions = new SolutionCache(64);
+    }
 
     // prevents big boards from going off screen and tiny boards from being
     // impossible to read
@@ -151,31 +391,50 @@ class Maze extends World {
       this.cellSize = 20;
     }
 
-    this.width = (this.rows * this.cellSize) + (2 * this.cellSize);
-    this.height = (this.columns * this.cellSize) + (2 * this.cellSize);
-
-    this.vertices = new ArrayList<Posn>();
-    initVertices();
-
-    this.representatives = new HashMap<Posn, Posn>(this.vertices.size());
-    initRepresentatives();
+    // boards too big for the screen show the part around the player, see makeScene
+    this.viewRows = Math.min(this.rows, 120);
+    this.viewColumns = Math.min(this.columns, 70);
+    this.viewX = 0;
+    this.viewY = 0;
 
-    this.allEdges = new ArrayList<Edge>();
-    initEdges();
+    this.width = (this.viewRows * this.cellSize) + (2 * this.cellSize);
+    this.height = (this.viewColumns * this.cellSize) + (2 * this.cellSize);
 
-    this.edgesInTree = calculateEdges();
-    this.allCells = new ArrayList<Cell>();
-    this.allVisitedCells = new ArrayList<Cell>();
-    this.currentPath = new ArrayList<Cell>();
+    long start = MazeMetrics.start();
+    if (this.seeded) {
+      this.engine = new MazeEngine(this.rows, this.columns, this.seed);
+    }
+    else {
+      this.engine = new MazeEngine(this.rows, this.columns, this.r);
+    }
+    long time = MazeMetrics.lap("maze.engine", start);
+    this.visitedCells = new IntStack(16);
+    this.scene = null;
     initCells();
-    this.currentCell = allCells.get(0);
+    MazeMetrics.lap("maze.initCells", time);
+    MazeMetrics.lap("maze.reset", start);
+    this.currentCell = cell(0);
+    this.lastSearch = null;
+    this.search = null;
+    this.toFinish = null;
+    this.hint = null;
+    // shows a whole search in a few hundred ticks, whatever the size of the board
+    this.expansionsPerTick = Math.max(1, this.rows * this.columns / 300);
   }
 
   // Handles user key inputs
   // "r" -> resets and creates a random maze
-  // "b" -> performs and displays breadth-first search
-  // "d" -> performs and displays depth-first search
+  // "b" -> shows breadth-first search exploring the maze, a few cells each tick
+  // "d" -> shows depth-first search exploring the maze, a few cells each tick
+  // (on a maze from a seed that either search has solved before, the cached solution is
+  // drawn straight away instead)
+  // "+" / "-" -> doubles / halves the number of cells explored each tick
+  // "i" / "j" / "k" / "l" -> on boards bigger than the screen, moves the view half a
+  // screen up / left / down / right
+  // "a" -> performs and displays A* search
+  // "t" -> performs and displays two-way (bidirectional) breadth-first search
   // "m" -> user will traverse maze manually
+  // "h" -> shows the best next move from the current cell in orange
   // if manual:
   // "up" -> moves user up
   // "down" -> moves user down
@@ -184,309 +443,446 @@ class Maze extends World {
   public void onKeyEvent(String key) {
     if (key.equals("r")) {
       // reset board
-      reset(this.rows, this.columns, new Random());
+      reset(this.rows, this.columns, new Random().nextLong());
+    }
+    if (key.equals("b") && !this.showCached("bfs")) {
+      this.startSearch("bfs", new IntQueue(this.rows + this.columns));
+    }
+    if (key.equals("d") && !this.showCached("dfs")) {
+      this.startSearch("dfs", new IntStack(this.rows + this.columns));
+    }
+    if (key.equals("+") || key.equals("=")) {
+      this.expansionsPerTick = Math.min(this.expansionsPerTick * 2, this.board.cellCount());
+    }
+    if (key.equals("-")) {
+      this.expansionsPerTick = Math.max(1, this.expansionsPerTick / 2);
+    }
+    if (key.equals("i")) {
+      this.moveView(0, -this.viewColumns / 2);
+    }
+    if (key.equals("k")) {
+      this.moveView(0, this.viewColumns / 2);
     }
-    if (key.equals("b")) {
-      this.bfs();
+    if (key.equals("j")) {
+      this.moveView(-this.viewRows / 2, 0);
     }
-    if (key.equals("d")) {
-      this.dfs();
+    if (key.equals("l")) {
+      this.moveView(this.viewRows / 2, 0);
+    }
+    if (key.equals("a")) {
+      this.astar();
+    }
+    if (key.equals("t")) {
+      this.bidirectional();
+    }
+    if (key.equals("h")) {
+      this.showHint();
     }
     if (key.equals("up") || key.equals("down") || key.equals("left") || key.equals("right")) {
+      this.clearHint();
       Cell oldCell = currentCell;
       currentCell = currentCell.fillNextCell(key);
-      if(currentCell.equals(this.allCells.get(this.allCells.size() - 1))) {
+      if(currentCell.index == this.board.cellCount() - 1) {
         lastScene("");
       }
-      if (currentCell != oldCell) {
-        oldCell.color = Color.yellow;
+      if (!currentCell.equals(oldCell)) {
+        oldCell.changeColor(Color.yellow);
       }
+      this.follow(currentCell);
     }
   }
 
-  // EFFECT: creates all the vertices on the board
-  // starts in the top left and adds them from top to bottom, then left to right
-  void initVertices() {
-    for (int x = 0; x < this.rows + 1; x++) {
-      for (int y = 0; y < this.columns + 1; y++) {
-        this.vertices.add(new Posn(x * this.cellSize, y * this.cellSize));
-      }
+  // EFFECT: moves the view by the given number of cells, keeping it on the board
+  void moveView(int dx, int dy) {
+    int x = Math.max(0, Math.min(this.viewX + dx, this.rows - this.viewRows));
+    int y = Math.max(0, Math.min(this.viewY + dy, this.columns - this.viewColumns));
+    if (x != this.viewX || y != this.viewY) {
+      this.viewX = x;
+      this.viewY = y;
+      // everything on screen moved, so the board is drawn from scratch
+      this.scene = null;
     }
   }
 
-  // EFFECT: assigns each vertex it's representative, which is initially itself
-  void initRepresentatives() {
-    for (Posn p : this.vertices) {
-      this.representatives.put(p, p);
+  // EFFECT: centers the view on the cell if it is close to the edge of the screen
+  void follow(Cell c) {
+    int marginX = this.viewRows / 5;
+    int marginY = this.viewColumns / 5;
+    if (c.x < this.viewX + marginX || c.x >= this.viewX + this.viewRows - marginX
+        || c.y < this.viewY + marginY || c.y >= this.viewY + this.viewColumns - marginY) {
+      this.moveView(c.x - this.viewRows / 2 - this.viewX,
+          c.y - this.viewColumns / 2 - this.viewY);
     }
   }
 
-  // EFFECT: create all the edges in the board
-  void initEdges() {
-    for (Posn p : this.vertices) {
-
-      // weights prioritize edges of the board (1), then randomly select edges in the
-      // middle (2 - 4)
+  // is the cell on screen?
+  boolean inView(Cell c) {
+    return inView(c.index);
+  }
 
-      // right border
-      if (p.x == this.rows * this.cellSize && p.y < this.columns * this.cellSize) {
-        this.allEdges.add(new Edge(p, this.vertices.get(this.vertices.indexOf(p) + 1), 1));
-      }
-      // top border
-      else if (p.x < this.rows * this.cellSize && p.y == 0) {
-        this.allEdges
-        .add(new Edge(p, this.vertices.get(this.vertices.indexOf(p) + this.columns + 1), 1));
-        this.allEdges
-        .add(new Edge(p, this.vertices.get(this.vertices.indexOf(p) + 1), r.nextInt(5) + 2));
-      }
-      // left border
-      else if (p.x == 0 && p.y < this.columns * this.cellSize) {
-        this.allEdges.add(new Edge(p,
-            this.vertices.get(this.vertices.indexOf(p) + this.columns + 1), r.nextInt(5) + 2));
-        this.allEdges.add(new Edge(p, this.vertices.get(this.vertices.indexOf(p) + 1), 1));
-      }
-      // bottom border
-      else if (p.x < this.rows * this.cellSize && p.y == this.columns * this.cellSize) {
-        this.allEdges
-        .add(new Edge(p, this.vertices.get(this.vertices.indexOf(p) + this.columns + 1), 1));
-      }
-      // middle spaces
-      else if (p.x < this.rows * this.cellSize && p.y < this.columns * this.cellSize) {
-        this.allEdges.add(new Edge(p,
-            this.vertices.get(this.vertices.indexOf(p) + this.columns + 1), r.nextInt(5) + 2)); 
-        this.allEdges
-        .add(new Edge(p, this.vertices.get(this.vertices.indexOf(p) + 1), r.nextInt(5) + 2)); 
-      }
-    }
-    ArrayUtils<Edge> u = new ArrayUtils<Edge>();
-    u.quickSort(this.allEdges, new EdgeComparator());
+  // is the cell with the given index on screen?
+  boolean inView(int cell) {
+    int x = cell / this.columns;
+    int y = cell % this.columns;
+    return x >= this.viewX && x < this.viewX + this.viewRows
+        && y >= this.viewY && y < this.viewY + this.viewColumns;
   }
 
   // EFFECT: adds cells to the board
   void initCells() {
-    // add all cells
-    for (int i = 0; i < this.rows; i++) {
-      for (int j = 0; j < this.columns; j++) {
-        if (i == 0 && j == 0) {
-          // starting tile
-          this.allCells.add(new Cell(i, j, this.cellSize, Color.green));
-        }
-        else if (i == this.rows - 1 && j == this.columns - 1) {
-          // finish tile
-          this.allCells.add(new Cell(i, j, this.cellSize, Color.magenta));
-        }
-        else {
-          this.allCells.add(new Cell(i, j, this.cellSize));
+    this.board = new Board(this.engine, this.cellSize);
+  }
+
+  // returns a view of the cell with the given index, as the engine numbers cells
+  Cell cell(int index) {
+    return this.board.cell(index);
+  }
+
+  // returns views of the walls of the maze generated by the engine, in the order they
+  // are drawn
+  ArrayList<Edge> calculateEdges() {
+    ArrayList<Edge> countedEdges = new ArrayList<Edge>(this.engine.tree.length);
+    for (int id : this.engine.tree) {
+      countedEdges.add(this.board.edge(id));
+    }
+    return countedEdges;
+  }
+
+  // returns the position of the vertex with the given index on the board
+  Posn vertex(int v) {
+    return this.board.vertex(v);
+  }
+
+  // returns the index of the given vertex, see MazeEngine
+  int vertexIndex(Posn vertex) {
+    return (vertex.x / this.cellSize) * (this.columns + 1) + vertex.y / this.cellSize;
+  }
+
+  // draws the part of the board on screen
+  // the board is drawn from scratch once, then only the cells that changed color since
+  // are drawn again on top of it; once as many cells have been drawn on top as there are
+  // on screen, it is drawn from scratch again so the scene doesn't keep growing
+  // EFFECT: records the frame as a MazeFrameEvent, if a flight recording wants it
+  public WorldScene makeScene() {
+    MazeFrameEvent event = new MazeFrameEvent();
+    event.begin();
+    this.cellsDrawn = 0;
+    this.wallsDrawn = 0;
+    boolean fullRedraw = this.scene == null
+        || this.cellsRedrawn + this.board.dirtyCells.size() > this.viewRows * this.viewColumns;
+    if (fullRedraw) {
+      drawBoard();
+    }
+    while (!this.board.dirtyCells.isEmpty()) {
+      int cell = this.board.takeDirty();
+      if (inView(cell)) {
+        drawCell(cell);
+        for (int dir = 0; dir < 4; dir++) {
+          drawWall(this.board.wall(cell, dir));
         }
+        this.cellsRedrawn++;
       }
     }
 
-    // link cells
-    for (int i = 0; i < this.allCells.size(); i++) {
-      Cell current = this.allCells.get(i);
-      // only modify left of not left-most pieces
-      if (current.x != 0) {
-        current.cleft = this.allCells.get(i - this.columns);
-      }
-      // only modify right of not right-most pieces
-      if (current.x != this.rows - 1) {
-        current.cright = this.allCells.get(i + this.columns);
-      }
-      // only modify top of not top-most pieces
-      if (current.y != 0) {
-        current.ctop = this.allCells.get(i - 1);
-      }
-      // only modify bottom of not bottom-most pieces
-      if (current.y != this.columns - 1) {
-        current.cbottom = this.allCells.get(i + 1);
+    String status = status();
+    if (status != null && !status.equals(this.drawnStatus)) {
+      if (this.drawnStatus != null) {
+        // covers the old text in the margin above the board
+        this.scene.placeImageXY(new RectangleImage(this.width, this.cellSize,
+            OutlineMode.SOLID, Color.white), this.width / 2, this.cellSize / 2);
       }
+      this.scene.placeImageXY(new TextImage(status, this.cellSize - 2, Color.black),
+          this.width / 2, this.cellSize / 2);
+      this.drawnStatus = status;
     }
-    initCellEdges();
-  }
 
-  // EFFECT: connects each cell with each edge
-  // this information will be used in part two to find valid paths
-  void initCellEdges() {
-    for (Cell c : this.allCells)
-      for (Edge e : this.edgesInTree) {
-        int x = c.x * this.cellSize;
-        int y = c.y * this.cellSize;
-        int x1 = (c.x + 1) * this.cellSize;
-        int y1 = (c.y + 1) * this.cellSize;
-        if (e.sameLocation(new Posn(x, y), new Posn(x1, y))) { 
-          c.etop = e;
-        }
-        if (e.sameLocation(new Posn(x, y), new Posn(x, y1))) { 
-          c.eleft = e;
-        }
-        // the right edge
-        if (e.sameLocation(new Posn(x1, y), new Posn(x1, y1))) { 
-          c.eright = e;
-        }
-        // the left edge
-        if (e.sameLocation(new Posn(x, y1), new Posn(x1, y1))) {
-          c.ebottom = e;
-        }
-      }
+    if (!this.drawnGameOver
+        && this.currentCell.index == this.board.cellCount() - 1) {
+      this.scene.placeImageXY(new TextImage("Game Over!", Color.black),
+          this.width / 2, this.height / 2);
+      this.drawnGameOver = true;
+    }
+
+    if (event.shouldCommit()) {
+      event.cellsDrawn = this.cellsDrawn;
+      event.wallsDrawn = this.wallsDrawn;
+      event.fullRedraw = fullRedraw;
+      event.commit();
+    }
+    return this.scene;
   }
 
-  // generates the walls of the maze using Kruskals Algorithm
-  ArrayList<Edge> calculateEdges() {
-    int numEdges = 0;
-    int i = 0;
-    ArrayList<Edge> countedEdges = new ArrayList<Edge>();
-    while (numEdges < this.vertices.size() - 1) { // min. edges = vertices - 1
-      Edge curr = this.allEdges.get(i);
-      i++;
-      if (find(curr.vertex1).equals(find(curr.vertex2))) {
-        // if two elements have the same representative, they are already connected so
-        // do nothing
+  // EFFECT: draws every cell and wall on screen on a new scene
+  void drawBoard() {
+    this.scene = new WorldScene(this.width, this.height);
+    while (!this.board.dirtyCells.isEmpty()) {
+      this.board.takeDirty();
+    }
+    if (this.viewRows == this.rows && this.viewColumns == this.columns) {
+      for (int cell = 0; cell < this.board.cellCount(); cell++) {
+        drawCell(cell);
       }
-      else if (!countedEdges.contains(curr)) {
-        countedEdges.add(curr);
-        union(find(curr.vertex1), find(curr.vertex2));
-        numEdges++;
+      for (int id : this.engine.tree) {
+        drawWall(id);
       }
     }
-    countedEdges.add(new Edge(new Posn(0, 0), new Posn(0, this.cellSize), 1));
-    return countedEdges;
+    else {
+      // only visits the cells on screen, so drawing doesn't depend on the size of the board
+      for (int x = this.viewX; x < this.viewX + this.viewRows; x++) {
+        for (int y = this.viewY; y < this.viewY + this.viewColumns; y++) {
+          drawCell(x * this.columns + y);
+        }
+      }
+      // every wall on screen is the top or left wall of a cell on screen, or on the
+      // right or bottom edge of the screen
+      for (int x = this.viewX; x < this.viewX + this.viewRows; x++) {
+        for (int y = this.viewY; y < this.viewY + this.viewColumns; y++) {
+          int cell = x * this.columns + y;
+          drawWall(this.board.wall(cell, 0));
+          drawWall(this.board.wall(cell, 1));
+          if (x == this.viewX + this.viewRows - 1) {
+            drawWall(this.board.wall(cell, 2));
+          }
+          if (y == this.viewY + this.viewColumns - 1) {
+            drawWall(this.board.wall(cell, 3));
+          }
+        }
+      }
+    }
+    this.cellsRedrawn = 0;
+    this.drawnStatus = null;
+    this.drawnGameOver = false;
   }
 
-  // finds the representative corresponding to the vertex
-  Posn find(Posn vertex) {
-    return this.representatives.get(vertex);
+  // EFFECT: draws the cell with the given index on the scene
+  void drawCell(int cell) {
+    int x = cell / this.columns;
+    int y = cell % this.columns;
+    this.scene.placeImageXY(Images.cell(this.cellSize, this.board.color(cell)),
+        (x - this.viewX) * this.cellSize + this.cellSize + this.cellSize / 2,
+        (y - this.viewY) * this.cellSize + this.cellSize + this.cellSize / 2);
+    this.cellsDrawn++;
   }
 
-  // EFFECT: updates an edges representative to the given representative
-  void union(Posn value1, Posn value2) {
-    if (this.representatives.get(value1).equals(value1)
-        && this.representatives.get(value2).equals(value2)) { // if both keys point to themselves
-      this.representatives.replace(value1, value2);
-      for (Posn key : this.representatives.keySet()) {
-        if (this.representatives.get(key).equals(value1)) {
-          this.representatives.replace(key, value2);
-        }
-      }
+  // EFFECT: draws the engine edge with the given id on the scene, if there is one (-1
+  // for none)
+  void drawWall(int id) {
+    if (id == -1) {
+      return;
+    }
+    boolean horizontal = this.engine.isHorizontal(id);
+    int v = this.engine.edgeVertex1(id);
+    // the middle of the wall, half a cell along from its first vertex
+    int x = this.engine.vertexX(v) * this.cellSize;
+    int y = this.engine.vertexY(v) * this.cellSize;
+    if (horizontal) {
+      x += this.cellSize / 2;
     }
     else {
-      union(find(value1), find(value2));
+      y += this.cellSize / 2;
     }
+    this.scene.placeImageXY(Images.wall(this.cellSize, horizontal),
+        x - this.viewX * this.cellSize + this.cellSize,
+        y - this.viewY * this.cellSize + this.cellSize);
+    this.wallsDrawn++;
   }
 
-  // draws the board
-  public WorldScene makeScene() {
-    WorldScene ws = new WorldScene(this.width, this.height);
-    for (Cell c : this.allCells) {
-      ws.placeImageXY(c.drawCell(), c.x * this.cellSize + this.cellSize +
-          this.cellSize / 2,
-          c.y * this.cellSize + this.cellSize + this.cellSize / 2);
-    }
-    for (Edge e : this.edgesInTree) {
-      Posn p = e.centerPoint();
-      // draw horizontal line
-      if (e.vertex1.y == e.vertex2.y) {
-        ws.placeImageXY(new LineImage(new Posn(this.cellSize, 0), Color.black), p.x + this.cellSize,
-            p.y + this.cellSize);
-      }
-      // draw vertical line
-      else {
-        ws.placeImageXY(new LineImage(new Posn(0, this.cellSize), Color.black), p.x + this.cellSize,
-            p.y + this.cellSize);
-      }
+  // returns the text shown above the board, or null if there is none
+  String status() {
+    if (this.lastSearch == null) {
+      return null;
+    }
+    else {
+      return label(this.lastSearch) + ": " + this.engine.nodesExpanded + " expanded";
     }
+  }
 
-    if(this.currentCell.equals(this.allCells.get(this.allCells.size() - 1))) {
-      ws.placeImageXY(new TextImage("Game Over!", Color.black), 
-          this.width / 2, this.height / 2);
-      return ws;
+  // returns the name the status shows for the named search (see MazeEngine.solve)
+  static String label(String search) {
+    if (search.equals("astar")) {
+      return "A*";
+    }
+    else if (search.equals("two-way")) {
+      return "two-way bfs";
     }
     else {
-      return ws;
+      return search;
     }
   }
 
   // finds a solution to the maze using breadth first search
   // draws the solution
   ArrayList<Cell> bfs() {
-    ArrayList<Cell> bfs = searchHelp(new Queue<Cell>());
-    WorldScene ws = makeScene();
-    for (Cell c : bfs) {
-      c.changeColor(Color.yellow);
-      ws.placeImageXY(c.drawCell(), c.x * this.cellSize + this.cellSize +
-          this.cellSize / 2,
-          c.y * this.cellSize + this.cellSize + this.cellSize / 2);
-    }
-    return bfs;
+    this.stopSearch();
+    return showPath("bfs", toCells(this.solve("bfs")));
   }
 
   // finds a solution to the maze using depth first search
   // draws the solution
   ArrayList<Cell> dfs() {
-    ArrayList<Cell> dfs = searchHelp(new Stack<Cell>());
-    WorldScene ws = makeScene();
-    for (Cell c : dfs) {
-      c.changeColor(Color.yellow);
-      ws.placeImageXY(c.drawCell(), c.x * this.cellSize + this.cellSize +
-          this.cellSize / 2,
-          c.y * this.cellSize + this.cellSize + this.cellSize / 2);
-    }
-    return dfs;
-  }
-
-  // executes the search for dfs and bfs
-  ArrayList<Cell> searchHelp(ICollection<Cell> worklist) {
-    ArrayDeque<Cell> alreadySeen = new ArrayDeque<Cell>();
-    HashMap<Cell, Cell> cameFromCell = new HashMap<Cell, Cell>();
-    Cell from = this.allCells.get(0);
-    Cell to = this.allCells.get(this.allCells.size() - 1);
-
-    // Initialize the worklist with the from vertex
-    worklist.add(from);
-    // As long as the worklist isn't empty...
-    while (!worklist.isEmpty()) {
-      Cell next = worklist.remove();
-      if (next.equals(to)) {
-        return reconstruct(cameFromCell, next, new ArrayList<Cell>()); // Success!
-      }
-      else if (alreadySeen.contains(next)) {
-        // do nothing: we've already seen this one
+    this.stopSearch();
+    return showPath("dfs", toCells(this.solve("dfs")));
+  }
+
+  // finds a solution to the maze using A* search
+  // draws the solution
+  ArrayList<Cell> astar() {
+    this.stopSearch();
+    return showPath("astar", toCells(this.solve("astar")));
+  }
+
+  // finds a solution to the maze using breadth first search from both ends
+  // draws the solution
+  ArrayList<Cell> bidirectional() {
+    this.stopSearch();
+    return showPath("two-way", toCells(this.solve("two-way")));
+  }
+
+  // returns the path the named search (see MazeEngine.solve) finds, from the cache if the
+  // maze was generated from a seed and has been solved by it before
+  int[] solve(String search) {
+    if (this.seeded) {
+      return this.solutions.solve(this.engine, this.seed, search);
+    }
+    else {
+      return this.engine.solve(search);
+    }
+  }
+
+  // returns the cached solution of the maze by the named search, or null if there is none
+  CachedSolution cached(String search) {
+    if (!this.seeded) {
+      return null;
+    }
+    return this.solutions.get(new SolutionKey(this.rows, this.columns, this.seed, search));
+  }
+
+  // EFFECT: if the maze has been solved by the named search before, draws the solution
+  // straight away instead of showing the search again
+  // returns whether it was
+  boolean showCached(String search) {
+    CachedSolution solution = this.cached(search);
+    if (solution == null) {
+      return false;
+    }
+    this.stopSearch();
+    this.engine.nodesExpanded = solution.nodesExpanded;
+    showPath(search, toCells(solution.path(this.rows, this.columns)));
+    return true;
+  }
+
+  // EFFECT: starts showing the search, which onTick advances a few cells at a time
+  // the cells the last search explored are cleared first
+  void startSearch(String name, IIntCollection worklist) {
+    this.clearVisited();
+    this.lastSearch = name;
+    this.engine.nodesExpanded = 0;
+    this.search = new SearchStepper(this.engine, worklist);
+  }
+
+  // returns the distances of all cells to the finish, building them once per maze
+  DistanceField toFinish() {
+    if (this.toFinish == null) {
+      this.toFinish = new DistanceField(this.engine);
+    }
+    return this.toFinish;
+  }
+
+  // returns the index of the cell, as the engine numbers cells
+  int indexOf(Cell c) {
+    return c.index;
+  }
+
+  // returns the cells from the given one to the finish, both included
+  ArrayList<Cell> remainingPath(Cell from) {
+    return toCells(this.toFinish().remainingPath(indexOf(from)));
+  }
+
+  // EFFECT: colors the best next move from the current cell orange, until the next move
+  void showHint() {
+    this.clearHint();
+    int next = this.toFinish().nextHop(indexOf(this.currentCell));
+    if (next != -1) {
+      this.hint = cell(next);
+      this.hintColor = this.hint.color();
+      this.hint.changeColor(Color.orange);
+    }
+  }
+
+  // EFFECT: gives the hint cell its color back, unless something else colored it since
+  void clearHint() {
+    if (this.hint != null && this.hint.color().equals(Color.orange)) {
+      this.hint.changeColor(this.hintColor);
+    }
+    this.hint = null;
+  }
+
+  // EFFECT: stops showing the search onTick is advancing, if there is one, so it can't
+  // finish over the next solution, and clears the cells it explored
+  void stopSearch() {
+    this.search = null;
+    this.clearVisited();
+  }
+
+  // EFFECT: clears the cells the last search explored
+  void clearVisited() {
+    while (!this.visitedCells.isEmpty()) {
+      int cell = this.visitedCells.remove();
+      if (this.board.color(cell).equals(Color.cyan)) {
+        this.board.setColor(cell, Color.white);
       }
-      else {
-        if (next.ctop != null && next.etop == null) {
-          worklist.add(next.ctop);
-          cameFromCell.put(next, next.ctop);
-        }
-        if (next.cleft != null && next.eleft == null) {
-          worklist.add(next.cleft);
-          cameFromCell.put(next, next.cleft);
-        }
-        if (next.cright != null && next.eright == null) {
-          worklist.add(next.cright);
-          cameFromCell.put(next, next.cright);
-        }
-        if (next.cbottom != null && next.ebottom == null) {
-          worklist.add(next.cbottom);
-          cameFromCell.put(next, next.cbottom);
+    }
+  }
+
+  // EFFECT: advances the search being shown, if there is one, coloring the cells it
+  // explores, and draws the solution once it finishes
+  public void onTick() {
+    if (this.search == null) {
+      return;
+    }
+    this.search.step(this.expansionsPerTick, cell -> this.visit(cell));
+    this.engine.nodesExpanded = this.search.expanded;
+    if (this.search.done) {
+      if (this.search.path != null) {
+        showPath(this.lastSearch, toCells(this.search.path));
+        if (this.seeded) {
+          this.solutions.put(new SolutionKey(this.rows, this.columns, this.seed,
+              this.lastSearch), new CachedSolution(this.search.path, this.columns,
+              this.board.cellCount() - 1, this.search.expanded));
         }
-        // add next to alreadySeen, since we're done with it
-        alreadySeen.addFirst(next);
       }
+      this.search = null;
     }
-    // We haven't found the to vertex, and there are no more to try
-    return null;
   }
 
-  // returns the correct path from the search
-  ArrayList<Cell> reconstruct(HashMap<Cell, Cell> cameFromCell, Cell end, ArrayList<Cell> path) {
-    for (Cell c : cameFromCell.keySet()) {
-      if (cameFromCell.get(c).equals(end)) {
-        path.add(c);
-        reconstruct(cameFromCell, c, path);
-      }
+  // EFFECT: colors the cell as explored by the search being shown, unless it is the start
+  void visit(int cell) {
+    if (cell != 0) {
+      this.board.setColor(cell, Color.cyan);
+      this.visitedCells.add(cell);
+    }
+  }
+
+  // EFFECT: colors the cells on the path and remembers which search (see
+  // MazeEngine.solve) found it
+  // returns the path
+  ArrayList<Cell> showPath(String search, ArrayList<Cell> path) {
+    this.lastSearch = search;
+    for (Cell c : path) {
+      c.changeColor(Color.yellow);
     }
     return path;
   }
 
+  // returns the cells with the given indices
+  ArrayList<Cell> toCells(int[] path) {
+    ArrayList<Cell> cells = new ArrayList<Cell>(path.length);
+    for (int i : path) {
+      cells.add(cell(i));
+    }
+    return cells;
+  }
+
 }
 
 //Represents a mutable collection of items
@@ -631,9 +1027,6 @@ class ExampleMaze {
   ArrayList<Integer> list1a;
   ArrayList<String> list2;
   ArrayList<String> list2a;
-  Cell cell1;
-  Cell cell2;
-  Cell cell3;
 
   void init() {
     this.maze1 = new Maze(3, 3, new Random(5));
@@ -646,49 +1039,67 @@ class ExampleMaze {
     this.list1a = new ArrayList<Integer>(Arrays.asList(1, 2, 3, 4, 5));
     this.list2 = new ArrayList<String>(Arrays.asList("b", "d", "e", "a", "c"));
     this.list2a = new ArrayList<String>(Arrays.asList("a", "b", "c", "d", "e"));
-    this.cell1 = new Cell(0, 0, 10, Color.white);
-    this.cell2 = new Cell(10, 4, 12, Color.white);
-    this.cell3 = new Cell(2, 3, 5, Color.black);
   }
 
-  // run the maze game
-  void testbigbang(Tester t) {
+  // run the maze game, with its metrics on JMX to be switched on there
+  void testbigbang(Tester t) throws JMException {
+    MazeMetrics.register();
     Maze w = new Maze(10, 10, new Random());
-    maze1.bigBang(maze1.width, maze1.height);
+    maze1.bigBang(maze1.width, maze1.height, 1.0 / 30);
   }
 
   // Cell Tests ------------------------------------------------------------------
 
   void testDrawCell(Tester t) {
     init();
-    t.checkExpect(this.cell1.drawCell(), 
-        new RectangleImage(10, 10, OutlineMode.SOLID, Color.white));
-    t.checkExpect(this.cell2.drawCell(), 
-        new RectangleImage(12, 12, OutlineMode.SOLID, Color.white));
-    t.checkExpect(this.cell3.drawCell(), 
-        new RectangleImage(5, 5, OutlineMode.SOLID, Color.black));
+    Maze big = new Maze(80, 10, new Random(5));
+    t.checkExpect(this.maze1.cell(0).drawCell(), 
+        new RectangleImage(20, 20, OutlineMode.SOLID, Color.green));
+    t.checkExpect(this.maze1.cell(4).drawCell(), 
+        new RectangleImage(20, 20, OutlineMode.SOLID, Color.white));
+    t.checkExpect(big.cell(799).drawCell(), 
+        new RectangleImage(12, 12, OutlineMode.SOLID, Color.magenta));
+    // cells of the same size and color share one image
+    t.checkExpect(this.maze1.cell(4).drawCell() == this.maze2.cell(1).drawCell(), true);
+    t.checkExpect(this.maze1.cell(4).drawCell() == big.cell(4).drawCell(), false);
+  }
+
+  void testImages(Tester t) {
+    t.checkExpect(Images.cell(20, Color.red), new RectangleImage(20, 20, OutlineMode.SOLID,
+        Color.red));
+    t.checkExpect(Images.cell(20, Color.red) == Images.cell(20, Color.red), true);
+    t.checkExpect(Images.cell(20, Color.red) == Images.cell(20, Color.blue), false);
+    t.checkExpect(Images.cell(20, Color.red) == Images.cell(12, Color.red), false);
+    t.checkExpect(Images.wall(20, true), new LineImage(new Posn(20, 0), Color.black));
+    t.checkExpect(Images.wall(12, false), new LineImage(new Posn(0, 12), Color.black));
+    t.checkExpect(Images.wall(12, false) == Images.wall(12, false), true);
+    t.checkExpect(Images.wall(12, false) == Images.wall(12, true), false);
   }
 
   void testChangeColor(Tester t) {
     init();
-    this.cell1.changeColor(Color.red);
-    t.checkExpect(this.cell1.color, Color.red);
-    this.cell2.changeColor(Color.green);
-    t.checkExpect(this.cell2.color, Color.green);
-    this.cell3.changeColor(Color.black);
-    t.checkExpect(this.cell3, this.cell3);
+    this.maze1.cell(4).changeColor(Color.red);
+    t.checkExpect(this.maze1.cell(4).color(), Color.red);
+    t.checkExpect(this.maze1.board.colors[4], Board.paletteIndex(Color.red));
+    this.maze1.cell(0).changeColor(Color.blue);
+    t.checkExpect(this.maze1.cell(0).color(), Color.blue);
+    // other cells and other boards keep their colors
+    t.checkExpect(this.maze1.cell(3).color(), Color.white);
+    t.checkExpect(this.maze2.cell(0).color(), Color.green);
+    t.checkException(new IllegalArgumentException("cells can't be colored " + Color.pink),
+        this.maze1.cell(4), "changeColor", Color.pink);
   }
 
   void testfillNextCell(Tester t) {
     init();
-    this.maze1.allCells.get(0).fillNextCell("up");
-    t.checkExpect(this.maze1.allCells.get(0).ctop, null);
-    this.maze1.allCells.get(0).fillNextCell("down");
-    t.checkExpect(this.maze1.allCells.get(0).cbottom.color, Color.red);
-    this.maze1.allCells.get(0).fillNextCell("left");
-    t.checkExpect(this.maze1.allCells.get(0).cleft, null);
-    this.maze1.allCells.get(0).fillNextCell("right");
-    t.checkExpect(this.maze1.allCells.get(0).cright.color, Color.red);
+    this.maze1.cell(0).fillNextCell("up");
+    t.checkExpect(this.maze1.cell(0).neighbor(0), null);
+    this.maze1.cell(0).fillNextCell("down");
+    t.checkExpect(this.maze1.cell(0).neighbor(3).color(), Color.red);
+    this.maze1.cell(0).fillNextCell("left");
+    t.checkExpect(this.maze1.cell(0).neighbor(1), null);
+    this.maze1.cell(0).fillNextCell("right");
+    t.checkExpect(this.maze1.cell(0).neighbor(2).color(), Color.red);
   }
 
   // Edge Tests ------------------------------------------------------------------
@@ -713,123 +1124,148 @@ class ExampleMaze {
     init();
     Maze initial = this.maze1;
     t.checkExpect(this.maze1, initial);
-    this.maze1.allCells.get(2).changeColor(Color.black); // modify board in some way
+    this.maze1.cell(2).changeColor(Color.black); // modify board in some way
     this.maze1.reset(this.maze1.rows, this.maze1.columns, this.maze1.r); // reset
     t.checkExpect(this.maze1, initial); // board is the same as initial state
 
     Maze initial2 = this.maze2;
-    this.maze2.allEdges.remove(3); // modify board in some way
+    this.maze2.engine.walls[3] = 0; // modify board in some way
     this.maze2.reset(this.maze2.rows, this.maze2.columns, this.maze2.r); // reset
     t.checkExpect(this.maze2, initial2); // board is the same as initial state
   }
 
-  void testinitVertices(Tester t) {
+  void testVertex(Tester t) {
     init();
-    t.checkExpect(maze1.vertices.size(), 16);
-    t.checkExpect(maze1.vertices.get(0), new Posn(0, 0));
-    t.checkExpect(maze1.vertices.get(15), new Posn(60, 60));
-    t.checkExpect(maze2.vertices.size(), 9);
-    t.checkExpect(maze1.vertices.get(0), new Posn(0, 0));
-    t.checkExpect(maze1.vertices.get(8), new Posn(40, 0));
+    t.checkExpect(maze1.vertex(0), new Posn(0, 0));
+    t.checkExpect(maze1.vertex(15), new Posn(60, 60));
+    t.checkExpect(maze1.vertex(8), new Posn(40, 0));
+    t.checkExpect(maze3.vertex(5), new Posn(20, 40));
   }
 
-  void testinitRepresentatives(Tester t) {
+  void testVertexIndex(Tester t) {
     init();
-    t.checkExpect(maze1.representatives.size(), 16);
-    t.checkExpect(maze1.representatives.get(new Posn(0, 0)), new Posn(40, 40));
-    t.checkExpect(maze1.representatives.get(new Posn(60, 60)), new Posn(40, 40));
-    t.checkExpect(maze2.representatives.size(), 9);
-    t.checkExpect(maze2.representatives.get(new Posn(0, 0)), new Posn(40, 40));
-    t.checkExpect(maze2.representatives.get(new Posn(40, 0)), new Posn(40, 40));
+    t.checkExpect(maze1.vertexIndex(new Posn(0, 0)), 0);
+    t.checkExpect(maze1.vertexIndex(new Posn(0, 20)), 1);
+    t.checkExpect(maze1.vertexIndex(new Posn(40, 0)), 8);
+    t.checkExpect(maze1.vertexIndex(new Posn(60, 60)), 15);
+    t.checkExpect(maze3.vertexIndex(new Posn(20, 40)), 5);
   }
 
-  void testinitEdges(Tester t) {
-    init();
-    t.checkExpect(maze1.allEdges.size(), 24);
-    t.checkExpect(maze1.allEdges.get(0), new Edge(new Posn(60, 40), new Posn(60, 60), 1));
-    t.checkExpect(maze1.allEdges.get(23), new Edge(new Posn(20, 40), new Posn(40, 40), 6));
-    t.checkExpect(maze2.allEdges.size(), 12);
-    t.checkExpect(maze2.allEdges.get(0), new Edge(new Posn(40, 20), new Posn(40, 40), 1));
-    t.checkExpect(maze2.allEdges.get(11), new Edge(new Posn(20, 20), new Posn(40, 20), 6));
-  }
-
-
   void testcalculateEdges(Tester t) {
     init();
     ArrayList<Edge> list = new ArrayList<Edge>();
+    list.add(new Edge(new Posn(0, 40), new Posn(20, 40), 1));
+    list.add(new Edge(new Posn(20, 0), new Posn(40, 0), 1));
     list.add(new Edge(new Posn(40, 20), new Posn(40, 40), 1));
     list.add(new Edge(new Posn(40, 0), new Posn(40, 20), 1));
     list.add(new Edge(new Posn(0, 20), new Posn(0, 40), 1));
-    list.add(new Edge(new Posn(0, 40), new Posn(20, 40), 1));
-    list.add(new Edge(new Posn(20, 0), new Posn(40, 0), 1));
     list.add(new Edge(new Posn(20, 40), new Posn(40, 40), 1));
     list.add(new Edge(new Posn(0, 0), new Posn(20, 0), 1));
     list.add(new Edge(new Posn(20, 20), new Posn(20, 40), 3));
     list.add(new Edge(new Posn(0, 0), new Posn(0, 20), 1));
-    t.checkExpect(maze2.edgesInTree, list);
+    t.checkExpect(maze2.calculateEdges(), list);
     ArrayList<Edge> list2 = new ArrayList<Edge>();
-    list2.add(new Edge(new Posn(20, 20), new Posn(20, 40), 1));
     list2.add(new Edge(new Posn(20, 0), new Posn(20, 20), 1));
     list2.add(new Edge(new Posn(0, 20), new Posn(0, 40), 1));
-    list2.add(new Edge(new Posn(0, 40), new Posn(20, 40), 1));
     list2.add(new Edge(new Posn(0, 0), new Posn(20, 0), 1));
+    list2.add(new Edge(new Posn(0, 40), new Posn(20, 40), 1));
+    list2.add(new Edge(new Posn(20, 20), new Posn(20, 40), 1));
     list2.add(new Edge(new Posn(0, 0), new Posn(0, 20), 1));
-    t.checkExpect(this.maze3.edgesInTree, list2);
+    t.checkExpect(this.maze3.calculateEdges(), list2);
   }
 
-  void testfind(Tester t) {
-    init();
-    t.checkExpect(this.maze1.find(new Posn(0, 0)), new Posn(40, 40));
-    t.checkExpect(this.maze1.find(new Posn(20, 20)), new Posn(40, 40));
-    t.checkExpect(this.maze2.find(new Posn(0, 0)), new Posn(40, 40));
-  }
-
-  void testUnion(Tester t) {
-    init();
-    // all edges should point to the same representative after being initialized
-    t.checkExpect(this.maze1.representatives.get(this.maze1.vertices.get(0)), new Posn(40, 40));
-    t.checkExpect(this.maze1.representatives.get(this.maze1.vertices.get(5)), new Posn(40, 40));
-    t.checkExpect(this.maze1.representatives.get(this.maze1.vertices.get(11)), new Posn(40, 40));
+  void testUnionFind(Tester t) {
+    UnionFind u = new UnionFind(5);
+    t.checkExpect(u.find(3), 3);
+    t.checkExpect(u.union(0, 1), true);
+    t.checkExpect(u.union(1, 0), false);
+    t.checkExpect(u.union(2, 3), true);
+    t.checkExpect(u.union(3, 1), true);
+    t.checkExpect(u.find(0), u.find(2));
+    t.checkExpect(u.find(4) == u.find(0), false);
+    // find points the element straight at its representative
+    t.checkExpect(u.parent[3], u.find(0));
+    u.reset();
+    t.checkExpect(u.find(2), 2);
+    t.checkExpect(u.union(2, 3), true);
   }
 
   void testinitCells(Tester t) {
     init();
-    t.checkExpect(this.maze1.allCells.get(0).x, 0);
-    t.checkExpect(this.maze1.allCells.get(0).y, 0);
-    t.checkExpect(this.maze1.allCells.get(0).color, Color.green);
-    t.checkExpect(this.maze1.allCells.get(0).ctop, null);
-    t.checkExpect(this.maze1.allCells.get(0).cbottom, this.maze1.allCells.get(1));
-    t.checkExpect(this.maze1.allCells.get(0).cleft, null);
-    t.checkExpect(this.maze1.allCells.get(0).cright, this.maze1.allCells.get(3));
-    t.checkExpect(this.maze1.allCells.size(), 9);
-
-    t.checkExpect(this.maze2.allCells.get(1).x, 0);
-    t.checkExpect(this.maze2.allCells.get(1).y, 1);
-    t.checkExpect(this.maze2.allCells.get(1).color, Color.white);
-    t.checkExpect(this.maze2.allCells.get(1).ctop, this.maze2.allCells.get(0));
-    t.checkExpect(this.maze2.allCells.get(1).cbottom, null);
-    t.checkExpect(this.maze2.allCells.get(1).cleft, null);
-    t.checkExpect(this.maze2.allCells.get(1).cright, this.maze2.allCells.get(3));
-    t.checkExpect(this.maze2.allCells.size(), 4);
+    t.checkExpect(this.maze1.cell(0).x, 0);
+    t.checkExpect(this.maze1.cell(0).y, 0);
+    t.checkExpect(this.maze1.cell(0).color(), Color.green);
+    t.checkExpect(this.maze1.cell(0).neighbor(0), null);
+    t.checkExpect(this.maze1.cell(0).neighbor(3), this.maze1.cell(1));
+    t.checkExpect(this.maze1.cell(0).neighbor(1), null);
+    t.checkExpect(this.maze1.cell(0).neighbor(2), this.maze1.cell(3));
+    t.checkExpect(this.maze1.board.cellCount(), 9);
+    t.checkExpect(this.maze1.cell(7).x, 2);
+    t.checkExpect(this.maze1.cell(7).y, 1);
+
+    t.checkExpect(this.maze2.cell(1).x, 0);
+    t.checkExpect(this.maze2.cell(1).y, 1);
+    t.checkExpect(this.maze2.cell(1).color(), Color.white);
+    t.checkExpect(this.maze2.cell(1).neighbor(0), this.maze2.cell(0));
+    t.checkExpect(this.maze2.cell(1).neighbor(3), null);
+    t.checkExpect(this.maze2.cell(1).neighbor(1), null);
+    t.checkExpect(this.maze2.cell(1).neighbor(2), this.maze2.cell(3));
+    t.checkExpect(this.maze2.board.cellCount(), 4);
+    // cells are views, equal when they are the same cell of the same board
+    t.checkExpect(this.maze2.cell(1).equals(this.maze2.cell(1)), true);
+    t.checkExpect(this.maze2.cell(1).hashCode(), this.maze2.cell(1).hashCode());
+    t.checkExpect(this.maze2.cell(1).equals(this.maze2.cell(2)), false);
+    t.checkExpect(this.maze2.cell(1).equals(new Maze(2, 2, new Random(5)).cell(1)), false);
 
   }
 
   void testinitCellEdges(Tester t) {
     init();
-    t.checkExpect(this.maze1.allCells.get(0).etop, new Edge(new Posn(0, 0), new Posn(20, 0), 1));
-    t.checkExpect(this.maze1.allCells.get(0).eleft, new Edge(new Posn(0, 0), new Posn(0, 20), 1));
-    t.checkExpect(this.maze1.allCells.get(0).ebottom, null);
-    t.checkExpect(this.maze1.allCells.get(0).eright, null);
-    t.checkExpect(this.maze2.allCells.get(3).etop, null);
-    t.checkExpect(this.maze2.allCells.get(3).eleft, 
+    t.checkExpect(this.maze1.cell(0).wall(0), new Edge(new Posn(0, 0), new Posn(20, 0), 1));
+    t.checkExpect(this.maze1.cell(0).wall(1), new Edge(new Posn(0, 0), new Posn(0, 20), 1));
+    t.checkExpect(this.maze1.cell(0).wall(3), null);
+    t.checkExpect(this.maze1.cell(0).wall(2), null);
+    t.checkExpect(this.maze2.cell(3).wall(0), null);
+    t.checkExpect(this.maze2.cell(3).wall(1), 
         new Edge(new Posn(20, 20), new Posn(20, 40), 3));
-    t.checkExpect(this.maze2.allCells.get(3).ebottom, 
+    t.checkExpect(this.maze2.cell(3).wall(3), 
         new Edge(new Posn(20, 40), new Posn(40, 40), 1));
-    t.checkExpect(this.maze2.allCells.get(3).eright, 
+    t.checkExpect(this.maze2.cell(3).wall(2), 
         new Edge(new Posn(40, 20), new Posn(40, 40), 1));
   }
 
 
+  void testBoard(Tester t) {
+    init();
+    Board b = this.maze1.board;
+    t.checkExpect(b.colors.length, 9);
+    t.checkExpect(b.color(0), Color.green);
+    t.checkExpect(b.color(4), Color.white);
+    t.checkExpect(b.color(8), Color.magenta);
+    t.checkExpect(Board.PALETTE[Board.paletteIndex(Color.cyan)], Color.cyan);
+    // the walls around cell 4, at (1, 1), whose top left vertex is 5
+    t.checkExpect(b.wall(4, 0), (b.engine.walls[4] & MazeEngine.TOP) != 0 ? 11 : -1);
+    t.checkExpect(b.wall(4, 1), (b.engine.walls[4] & MazeEngine.LEFT) != 0 ? 10 : -1);
+    t.checkExpect(b.wall(4, 2), (b.engine.walls[4] & MazeEngine.RIGHT) != 0 ? 18 : -1);
+    t.checkExpect(b.wall(4, 3), (b.engine.walls[4] & MazeEngine.BOTTOM) != 0 ? 13 : -1);
+    // the outside of the board is always walled
+    t.checkExpect(b.wall(0, 0), 1);
+    t.checkExpect(b.wall(0, 1), 0);
+    t.checkExpect(b.edge(1), new Edge(new Posn(0, 0), new Posn(20, 0), 1));
+    t.checkExpect(b.vertex(15), new Posn(60, 60));
+    // cells changed are drawn again once, in the order they changed
+    b.setColor(5, Color.red);
+    b.setColor(2, Color.red);
+    b.setColor(5, Color.yellow);
+    t.checkExpect(b.dirtyCells.size(), 2);
+    t.checkExpect(b.dirty.get(5), true);
+    t.checkExpect(b.takeDirty(), 5);
+    t.checkExpect(b.dirty.get(5), false);
+    t.checkExpect(b.takeDirty(), 2);
+    t.checkExpect(b.dirtyCells.isEmpty(), true);
+    t.checkExpect(b.color(5), Color.yellow);
+  }
+
   void testmakeScene(Tester t) {
     init();
     WorldScene ws = new WorldScene(80, 80);
@@ -837,11 +1273,11 @@ class ExampleMaze {
     ws.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.white), 30, 50);
     ws.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.white), 50, 30);
     ws.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.magenta), 50, 50);
+    ws.placeImageXY(new LineImage(new Posn(20, 0), Color.black), 30, 60);
+    ws.placeImageXY(new LineImage(new Posn(20, 0), Color.black), 50, 20);
     ws.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 60, 50);
     ws.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 60, 30);
     ws.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 20, 50);
-    ws.placeImageXY(new LineImage(new Posn(20, 0), Color.black), 30, 60);
-    ws.placeImageXY(new LineImage(new Posn(20, 0), Color.black), 50, 20);
     ws.placeImageXY(new LineImage(new Posn(20, 0), Color.black), 50, 60);
     ws.placeImageXY(new LineImage(new Posn(20, 0), Color.black), 30, 20);
     ws.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 40, 50);
@@ -850,15 +1286,136 @@ class ExampleMaze {
     WorldScene ws2 = new WorldScene(60, 80);
     ws2.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.green), 30, 30);
     ws2.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.magenta), 30, 50);
-    ws2.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 40, 50);
     ws2.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 40, 30);
     ws2.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 20, 50);
-    ws2.placeImageXY(new LineImage(new Posn(20, 0), Color.black), 30, 60);
     ws2.placeImageXY(new LineImage(new Posn(20, 0), Color.black), 30, 20);
+    ws2.placeImageXY(new LineImage(new Posn(20, 0), Color.black), 30, 60);
+    ws2.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 40, 50);
     ws2.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 20, 30);
     t.checkExpect(this.maze3.makeScene(), ws2);
   }
 
+  void testDirtyCells(Tester t) {
+    init();
+    WorldScene first = this.maze2.makeScene();
+    WorldScene ws = new Maze(2, 2, new Random(5)).makeScene();
+    t.checkExpect(this.maze2.board.dirtyCells.size(), 0);
+    // moving down only draws the two cells that changed, and their walls
+    this.maze2.onKeyEvent("down");
+    t.checkExpect(this.maze2.board.dirtyCells.size(), 2);
+    t.checkExpect(this.maze2.cell(1).isDirty(), true);
+    ws.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.red), 30, 50);
+    ws.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 20, 50);
+    ws.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 40, 50);
+    ws.placeImageXY(new LineImage(new Posn(20, 0), Color.black), 30, 60);
+    ws.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.yellow), 30, 30);
+    ws.placeImageXY(new LineImage(new Posn(20, 0), Color.black), 30, 20);
+    ws.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 20, 30);
+    t.checkExpect(this.maze2.makeScene() == first, true);
+    t.checkExpect(first, ws);
+    t.checkExpect(this.maze2.board.dirtyCells.size(), 0);
+    t.checkExpect(this.maze2.cell(1).isDirty(), false);
+    t.checkExpect(this.maze2.cellsRedrawn, 2);
+    // a cell changed twice is only drawn once
+    this.maze2.cell(2).changeColor(Color.blue);
+    this.maze2.cell(2).changeColor(Color.black);
+    t.checkExpect(this.maze2.board.dirtyCells.size(), 1);
+    t.checkExpect(this.maze2.makeScene() == first, true);
+    // once more cells would be drawn on top than the board has, it is drawn from scratch
+    this.maze2.cell(0).changeColor(Color.blue);
+    this.maze2.cell(3).changeColor(Color.blue);
+    t.checkExpect(this.maze2.makeScene() == first, false);
+    t.checkExpect(this.maze2.cellsRedrawn, 0);
+    // resetting the maze draws it from scratch
+    WorldScene second = this.maze2.makeScene();
+    this.maze2.reset(2, 2, new Random(5));
+    t.checkExpect(this.maze2.makeScene() == second, false);
+    t.checkExpect(this.maze2.makeScene(), new Maze(2, 2, new Random(5)).makeScene());
+  }
+
+  void testView(Tester t) {
+    init();
+    // small boards are on screen in full
+    t.checkExpect(this.maze1.viewRows, 3);
+    t.checkExpect(this.maze1.viewColumns, 3);
+    Maze big = new Maze(300, 200, new Random(4));
+    t.checkExpect(big.viewRows, 120);
+    t.checkExpect(big.viewColumns, 70);
+    t.checkExpect(big.width, 120 * 12 + 24);
+    t.checkExpect(big.height, 70 * 12 + 24);
+    t.checkExpect(big.inView(big.cell(119 * 200 + 69)), true);
+    t.checkExpect(big.inView(big.cell(120 * 200)), false);
+
+    // moving the view keeps it on the board, and draws the board from scratch
+    WorldScene first = big.makeScene();
+    big.onKeyEvent("j");
+    big.onKeyEvent("i");
+    t.checkExpect(big.makeScene() == first, true);
+    big.onKeyEvent("l");
+    t.checkExpect(big.viewX, 60);
+    t.checkExpect(big.makeScene() == first, false);
+    big.onKeyEvent("k");
+    big.onKeyEvent("k");
+    t.checkExpect(big.viewY, 70);
+    big.onKeyEvent("k");
+    big.onKeyEvent("k");
+    t.checkExpect(big.viewY, 130);
+    big.onKeyEvent("l");
+    big.onKeyEvent("l");
+    big.onKeyEvent("l");
+    t.checkExpect(big.viewX, 180);
+    big.moveView(-1000, -1000);
+    t.checkExpect(big.viewX, 0);
+    t.checkExpect(big.viewY, 0);
+
+    // the view follows the player once they get close to the edge of the screen
+    big.follow(big.cell(50 * 200 + 30));
+    t.checkExpect(big.viewX, 0);
+    big.follow(big.cell(100 * 200 + 30));
+    t.checkExpect(big.viewX, 40);
+    t.checkExpect(big.viewY, 0);
+    big.follow(big.cell(299 * 200 + 199));
+    t.checkExpect(big.viewX, 180);
+    t.checkExpect(big.viewY, 130);
+
+    // only the cells and walls on screen are drawn
+    this.maze2.viewRows = 1;
+    this.maze2.viewColumns = 1;
+    this.maze2.viewX = 1;
+    this.maze2.viewY = 1;
+    WorldScene ws = new WorldScene(80, 80);
+    ws.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.magenta), 30, 30);
+    ws.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 20, 30);
+    ws.placeImageXY(new LineImage(new Posn(0, 20), Color.black), 40, 30);
+    ws.placeImageXY(new LineImage(new Posn(20, 0), Color.black), 30, 40);
+    t.checkExpect(this.maze2.makeScene(), ws);
+    // cells off screen aren't drawn when they change
+    this.maze2.cell(0).changeColor(Color.red);
+    t.checkExpect(this.maze2.makeScene(), ws);
+    t.checkExpect(this.maze2.board.dirtyCells.size(), 0);
+    t.checkExpect(this.maze2.cellsRedrawn, 0);
+  }
+
+  void testStatus(Tester t) {
+    init();
+    t.checkExpect(this.maze1.status(), null);
+    this.maze1.makeScene();
+    this.maze1.bfs();
+    t.checkExpect(this.maze1.status(), "bfs: 7 expanded");
+    this.maze1.makeScene();
+    t.checkExpect(this.maze1.drawnStatus, "bfs: 7 expanded");
+    // a new search covers the old text before writing its own
+    this.maze3.makeScene();
+    this.maze3.bfs();
+    this.maze3.makeScene();
+    this.maze3.dfs();
+    WorldScene ws = new Maze(1, 2, new Random(5)).makeScene();
+    ws.placeImageXY(new TextImage("bfs: 1 expanded", 18, Color.black), 30, 10);
+    ws.placeImageXY(new RectangleImage(60, 20, OutlineMode.SOLID, Color.white), 30, 10);
+    ws.placeImageXY(new TextImage("dfs: 1 expanded", 18, Color.black), 30, 10);
+    t.checkExpect(this.maze3.makeScene(), ws);
+  }
+
   void testCompare(Tester t) {
     init();
     EdgeComparator e = new EdgeComparator();
@@ -944,118 +1501,1282 @@ class ExampleMaze {
 
     init(); // move right
     this.maze2.onKeyEvent("right"); 
-    t.checkExpect(this.maze2.allCells.get(this.maze2.columns).color, Color.red);
-    t.checkExpect(this.maze2.currentCell, this.maze2.allCells.get(this.maze2.columns));
+    t.checkExpect(this.maze2.cell(this.maze2.columns).color(), Color.red);
+    t.checkExpect(this.maze2.currentCell, this.maze2.cell(this.maze2.columns));
     this.maze1.onKeyEvent("right"); 
-    t.checkExpect(this.maze1.allCells.get(this.maze1.columns).color, Color.red);
-    t.checkExpect(this.maze1.currentCell, this.maze1.allCells.get(this.maze1.columns));  
+    t.checkExpect(this.maze1.cell(this.maze1.columns).color(), Color.red);
+    t.checkExpect(this.maze1.currentCell, this.maze1.cell(this.maze1.columns));  
 
     init(); // move down then right
     this.maze2.onKeyEvent("down"); 
-    t.checkExpect(this.maze2.allCells.get(1).color, Color.red);
-    t.checkExpect(this.maze2.currentCell, this.maze2.allCells.get(1));  
+    t.checkExpect(this.maze2.cell(1).color(), Color.red);
+    t.checkExpect(this.maze2.currentCell, this.maze2.cell(1));  
     this.maze2.onKeyEvent("right"); 
-    t.checkExpect(this.maze2.allCells.get(1).color, Color.red);
-    t.checkExpect(this.maze2.allCells.get(this.maze2.columns + 1).color, Color.magenta);
-    t.checkExpect(this.maze2.currentCell, this.maze2.allCells.get(1)); 
+    t.checkExpect(this.maze2.cell(1).color(), Color.red);
+    t.checkExpect(this.maze2.cell(this.maze2.columns + 1).color(), Color.magenta);
+    t.checkExpect(this.maze2.currentCell, this.maze2.cell(1)); 
 
     init(); // move down then up
     this.maze2.onKeyEvent("down"); 
-    t.checkExpect(this.maze2.allCells.get(1).color, Color.red);
-    t.checkExpect(this.maze2.currentCell, this.maze2.allCells.get(1));  
+    t.checkExpect(this.maze2.cell(1).color(), Color.red);
+    t.checkExpect(this.maze2.currentCell, this.maze2.cell(1));  
     this.maze2.onKeyEvent("up"); 
-    t.checkExpect(this.maze2.allCells.get(0).color, Color.red);
-    t.checkExpect(this.maze2.allCells.get(1).color, Color.yellow);
-    t.checkExpect(this.maze2.currentCell, this.maze2.allCells.get(0)); 
+    t.checkExpect(this.maze2.cell(0).color(), Color.red);
+    t.checkExpect(this.maze2.cell(1).color(), Color.yellow);
+    t.checkExpect(this.maze2.currentCell, this.maze2.cell(0)); 
 
     init(); // move up
     this.maze2.onKeyEvent("up");  // moving nowhere
-    t.checkExpect(this.maze2.allCells.get(0).color, Color.green);
-    t.checkExpect(this.maze2.currentCell, this.maze2.allCells.get(0));  
+    t.checkExpect(this.maze2.cell(0).color(), Color.green);
+    t.checkExpect(this.maze2.currentCell, this.maze2.cell(0));  
 
     init(); // move left
     this.maze2.onKeyEvent("left"); // moving nowhere
-    t.checkExpect(this.maze2.allCells.get(0).color, Color.green);
-    t.checkExpect(this.maze2.currentCell, this.maze2.allCells.get(0));  
+    t.checkExpect(this.maze2.cell(0).color(), Color.green);
+    t.checkExpect(this.maze2.currentCell, this.maze2.cell(0));  
 
   }
 
   void testBFS(Tester t) {
     init();
-    WorldScene ws = this.maze2.makeScene();
-    ws.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.yellow), 50, 30);
-    t.checkExpect(this.maze2.bfs(), ws);
-    WorldScene ws2 = this.maze3.makeScene();
-    ws2.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.yellow), 30, 30);
-    t.checkExpect(this.maze3.bfs(), ws2);
-    WorldScene ws3 = this.maze1.makeScene();
-    ws3.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.yellow), 70, 50);
-    ws3.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.yellow), 70, 30);
-    ws3.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.yellow), 50, 30);
-    t.checkExpect(this.maze1.bfs(), ws3);
-
+    ArrayList<Cell> path = new ArrayList<Cell>();
+    path.add(this.maze2.cell(2));
+    t.checkExpect(this.maze2.bfs(), path);
+    t.checkExpect(this.maze2.cell(2).color(), Color.yellow);
+    t.checkExpect(this.maze2.cell(1).color(), Color.white);
+    t.checkExpect(this.maze3.bfs(), new ArrayList<Cell>());
+    ArrayList<Cell> path3 = new ArrayList<Cell>();
+    path3.add(this.maze1.cell(5));
+    path3.add(this.maze1.cell(2));
+    path3.add(this.maze1.cell(1));
+    t.checkExpect(this.maze1.bfs(), path3);
+    t.checkExpect(this.maze1.cell(5).color(), Color.yellow);
+    t.checkExpect(this.maze1.cell(0).color(), Color.green);
+    t.checkExpect(this.maze1.cell(8).color(), Color.magenta);
   }
 
   void testDFS(Tester t) {
     init();
-    WorldScene ws = this.maze2.makeScene();
-    ws.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.yellow), 50, 30);
-    t.checkExpect(this.maze2.dfs(), ws);
-    WorldScene ws2 = this.maze3.makeScene();
-    ws2.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.yellow), 30, 30);
-    t.checkExpect(this.maze3.dfs(), ws2);
-    WorldScene ws3 = this.maze1.makeScene();
-    ws3.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.yellow), 70, 50);
-    ws3.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.yellow), 70, 30);
-    ws3.placeImageXY(new RectangleImage(20, 20, OutlineMode.SOLID, Color.yellow), 50, 30);
-    t.checkExpect(this.maze1.dfs(), ws3);
+    ArrayList<Cell> path = new ArrayList<Cell>();
+    path.add(this.maze2.cell(2));
+    t.checkExpect(this.maze2.dfs(), path);
+    t.checkExpect(this.maze2.cell(2).color(), Color.yellow);
+    t.checkExpect(this.maze3.dfs(), new ArrayList<Cell>());
+    ArrayList<Cell> path3 = new ArrayList<Cell>();
+    path3.add(this.maze1.cell(5));
+    path3.add(this.maze1.cell(2));
+    path3.add(this.maze1.cell(1));
+    t.checkExpect(this.maze1.dfs(), path3);
+    t.checkExpect(this.maze1.cell(1).color(), Color.yellow);
+    t.checkExpect(this.maze1.cell(3).color(), Color.white);
+  }
+
+  void testAStar(Tester t) {
+    init();
+    ArrayList<Cell> path = new ArrayList<Cell>();
+    path.add(this.maze1.cell(5));
+    path.add(this.maze1.cell(2));
+    path.add(this.maze1.cell(1));
+    t.checkExpect(this.maze1.astar(), path);
+    t.checkExpect(this.maze1.cell(2).color(), Color.yellow);
+    t.checkExpect(this.maze1.lastSearch, "astar");
+    t.checkExpect(this.maze1.status().startsWith("A*: "), true);
+    t.checkExpect(this.maze3.astar(), new ArrayList<Cell>());
+  }
+
+  void testBidirectional(Tester t) {
+    init();
+    ArrayList<Cell> path = new ArrayList<Cell>();
+    path.add(this.maze1.cell(5));
+    path.add(this.maze1.cell(2));
+    path.add(this.maze1.cell(1));
+    t.checkExpect(this.maze1.bidirectional(), path);
+    t.checkExpect(this.maze1.cell(5).color(), Color.yellow);
+    t.checkExpect(this.maze1.lastSearch, "two-way");
+    t.checkExpect(this.maze1.status().startsWith("two-way bfs: "), true);
+    t.checkExpect(this.maze3.bidirectional(), new ArrayList<Cell>());
+  }
+
+  void testInstantSearchStopsAnimation(Tester t) {
+    for (String key : new String[] {"a", "t"}) {
+      Maze m = new Maze(30, 30, 7L);
+      m.onKeyEvent("b");
+      m.onTick();
+      t.checkExpect(m.visitedCells.isEmpty(), false);
+      m.onKeyEvent(key);
+      t.checkExpect(m.search, null);
+      t.checkExpect(m.visitedCells.isEmpty(), true);
+      int expanded = m.engine.nodesExpanded;
+      // the stopped bfs doesn't finish later, over the instant search
+      for (int i = 0; i < 100; i++) {
+        m.onTick();
+      }
+      t.checkExpect(m.engine.nodesExpanded, expanded);
+      MazeEngine alone = new Maze(30, 30, 7L).engine;
+      alone.solve(key.equals("a") ? "astar" : "two-way");
+      t.checkExpect(m.engine.nodesExpanded, alone.nodesExpanded);
+      t.checkExpect(m.status(), Maze.label(m.lastSearch) + ": " + alone.nodesExpanded
+          + " expanded");
+      int cyan = 0;
+      for (int c = 0; c < m.board.cellCount(); c++) {
+        if (m.board.color(c).equals(Color.cyan)) {
+          cyan++;
+        }
+      }
+      t.checkExpect(cyan, 0);
+    }
+  }
+
+  void testParallelBfs(Tester t) throws IOException {
+    java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+    try {
+      // the maze is a tree, so the path is the one bfs finds
+      for (int seed = 0; seed < 5; seed++) {
+        MazeEngine e = new MazeEngine(60, 45, new Random(seed));
+        int[] path = new ParallelBfs(e, pool).search();
+        t.checkExpect(path, e.bfs());
+        t.checkExpect(e.parallelBfs(), path);
+        t.checkExpect(e.search("parallel-bfs"), path);
+      }
+      t.checkExpect(new MazeEngine(1, 1, new Random(1)).parallelBfs(), new int[0]);
+      t.checkExpect(new MazeEngine(1, 4, new Random(1)).parallelBfs(), new int[] {2, 1});
+      t.checkExpect(new OffHeapMaze(40, 30, new Random(3)).parallelBfs(),
+          ellerMaze(40, 30, 3).bfs());
+      // every cell on a level is expanded before the finish is seen
+      MazeEngine line = new MazeEngine(1, 4, new Random(1));
+      line.parallelBfs();
+      t.checkExpect(line.nodesExpanded, 3);
+
+      // without walls the frontiers are thousands of cells across, so many chunks reach
+      // the same cells at once and only one of them may claim each
+      MazeEngine open = new MazeEngine(1500, 1500, new Random(1));
+      Arrays.fill(open.walls, (byte) 0);
+      ParallelBfs search = new ParallelBfs(open, pool);
+      int[] path = search.search();
+      t.checkExpect(path.length, 1500 + 1500 - 3);
+      t.checkExpect(isSimplePath(open, path), true);
+      t.checkExpect(search.buffers.length >= 2, true);
+      t.checkExpect(open.nodesExpanded, open.cellCount() - 1);
+      // a wall across the whole board cuts off the finish
+      for (int y = 0; y < 1500; y++) {
+        open.walls[750 * 1500 + y] |= MazeEngine.LEFT;
+        open.walls[749 * 1500 + y] |= MazeEngine.RIGHT;
+      }
+      t.checkExpect(new ParallelBfs(open, pool).search(), null);
+      t.checkExpect(open.nodesExpanded, 750 * 1500);
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+
+  void testShowPath(Tester t) {
+    init();
+    ArrayList<Cell> path = new ArrayList<Cell>();
+    path.add(this.maze1.cell(4));
+    t.checkExpect(this.maze1.showPath("bfs", path), path);
+    t.checkExpect(this.maze1.cell(4).color(), Color.yellow);
+    t.checkExpect(this.maze1.lastSearch, "bfs");
+  }
+
+  void testAnimatedSearch(Tester t) {
+    init();
+    this.maze1.onKeyEvent("b");
+    t.checkExpect(this.maze1.lastSearch, "bfs");
+    t.checkExpect(this.maze1.search.expanded, 0);
+    this.maze1.expansionsPerTick = 2;
+    this.maze1.onTick();
+    t.checkExpect(this.maze1.engine.nodesExpanded, 2);
+    // the start keeps its color
+    t.checkExpect(this.maze1.cell(0).color(), Color.green);
+    t.checkExpect(this.maze1.cell(3).color(), Color.cyan);
+    t.checkExpect(this.maze1.visitedCells.size(), 1);
+    this.maze1.onTick();
+    this.maze1.onTick();
+    t.checkExpect(this.maze1.search.done, false);
+    this.maze1.onTick();
+    // the search is done, and expanded as many cells as bfs does in one go
+    t.checkExpect(this.maze1.search, null);
+    t.checkExpect(this.maze1.engine.nodesExpanded, 7);
+    t.checkExpect(this.maze1.cell(5).color(), Color.yellow);
+    t.checkExpect(this.maze1.cell(1).color(), Color.yellow);
+    t.checkExpect(this.maze1.cell(3).color(), Color.cyan);
+    this.maze1.onTick();
+    t.checkExpect(this.maze1.engine.nodesExpanded, 7);
+    // the next search clears the cells the last one explored
+    this.maze1.onKeyEvent("d");
+    t.checkExpect(this.maze1.cell(3).color(), Color.white);
+    t.checkExpect(this.maze1.cell(5).color(), Color.yellow);
+    t.checkExpect(this.maze1.lastSearch, "dfs");
+    this.maze1.onKeyEvent("r");
+    t.checkExpect(this.maze1.search, null);
+  }
+
+  void testSolutionCache(Tester t) {
+    SolutionCache cache = new SolutionCache(2);
+    MazeEngine e = new MazeEngine(30, 20, new Random(7));
+    int[] path = e.bfs();
+    int expanded = e.nodesExpanded;
+    MazeEngine same = new MazeEngine(30, 20, new Random(7));
+    t.checkExpect(cache.solve(same, 7, "bfs"), path);
+    t.checkExpect(cache.misses, 1);
+    same.nodesExpanded = 0;
+    t.checkExpect(cache.solve(same, 7, "bfs"), path);
+    t.checkExpect(same.nodesExpanded, expanded);
+    t.checkExpect(cache.hits, 1);
+    // each search, size and seed is its own solution
+    t.checkExpect(cache.solve(same, 7, "dfs"), e.dfs());
+    t.checkExpect(cache.size(), 2);
+    cache.solve(new MazeEngine(20, 30, new Random(7)), 7, "bfs");
+    // bfs was used longest ago, so it is dropped
+    t.checkExpect(cache.size(), 2);
+    t.checkExpect(cache.get(new SolutionKey(30, 20, 7, "bfs")), null);
+    t.checkExpect(cache.get(new SolutionKey(30, 20, 7, "dfs")) != null, true);
+    t.checkExpect(cache.get(new SolutionKey(20, 30, 7, "bfs")) != null, true);
+    t.checkExpect(cache.solve(new MazeEngine(1, 1, new Random(2)), 2, "astar"), new int[0]);
+    t.checkConstructorException(new IllegalArgumentException("capacity must be at least 1"),
+        "SolutionCache", 0);
+  }
+
+  void testSolutionKey(Tester t) {
+    t.checkExpect(new SolutionKey(3, 4, 5, "bfs").equals(new SolutionKey(3, 4, 5, "bfs")),
+        true);
+    t.checkExpect(new SolutionKey(3, 4, 5, "bfs").hashCode(),
+        new SolutionKey(3, 4, 5, "bfs").hashCode());
+    t.checkExpect(new SolutionKey(3, 4, 5, "bfs").equals(new SolutionKey(4, 3, 5, "bfs")),
+        false);
+    t.checkExpect(new SolutionKey(3, 4, 5, "bfs").equals(new SolutionKey(3, 4, 6, "bfs")),
+        false);
+    t.checkExpect(new SolutionKey(3, 4, 5, "bfs").equals(new SolutionKey(3, 4, 5, "dfs")),
+        false);
+    t.checkExpect(new SolutionKey(3, 4, 5, "bfs").equals("bfs"), false);
+  }
+
+  void testCachedSolution(Tester t) {
+    // a 3x3 maze: finish 8, then 5, 4, 1 back to the start
+    CachedSolution s = new CachedSolution(new int[] {5, 4, 1}, 3, 8, 6);
+    t.checkExpect(s.length, 3);
+    t.checkExpect(s.nodesExpanded, 6);
+    // left, top, left
+    t.checkExpect(s.directions, new byte[] {1 | 0 << 2 | 1 << 4});
+    t.checkExpect(s.path(3, 3), new int[] {5, 4, 1});
+    t.checkExpect(new CachedSolution(new int[0], 2, 1, 1).path(1, 2), new int[0]);
+    MazeEngine e = new MazeEngine(40, 25, new Random(3));
+    int[] path = e.dfs();
+    t.checkExpect(new CachedSolution(path, 25, 999, 0).path(40, 25), path);
+    t.checkExpect(new CachedSolution(path, 25, 999, 0).directions.length,
+        (path.length + 3) / 4);
+    t.checkExpect(CachedSolution.direction(4, 3, 3), 0);
+    t.checkExpect(CachedSolution.direction(4, 1, 3), 1);
+    t.checkExpect(CachedSolution.direction(4, 7, 3), 2);
+    t.checkExpect(CachedSolution.direction(4, 5, 3), 3);
+    t.checkException(new IllegalArgumentException("cells 4 and 8 are not neighbors"),
+        new CachedSolution(new int[0], 3, 8, 0), "direction", 4, 8, 3);
+  }
+
+  // returns the answer of the server to a GET, or to another method, of the URI
+  HttpResponse<byte[]> request(String method, String uri) throws Exception {
+    return HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(uri))
+        .method(method, HttpRequest.BodyPublishers.noBody()).build(),
+        HttpResponse.BodyHandlers.ofByteArray());
+  }
+
+  // returns the text the server answers a GET of the URI with
+  String get(String uri) throws Exception {
+    return new String(request("GET", uri).body(), "UTF-8");
+  }
+
+  void testMazeServer(Tester t) throws Exception {
+    MazeServer server = new MazeServer(0, 2, 10000, 2);
+    server.start();
+    try {
+      String base = "http://127.0.0.1:" + server.port();
+      t.checkExpect(get(base + "/generate?rows=3&columns=3&seed=5"),
+          "rows 3, columns 3, seed 5\n");
+      // the same maze as new Maze(3, 3, new Random(5)), from the start to the finish
+      t.checkExpect(get(base + "/solve?rows=3&columns=3&seed=5"),
+          "solution length 5, 7 cells expanded\n0 1 2 5 8\n");
+      t.checkExpect(get(base + "/solve?rows=1&columns=1&seed=5&search=two-way"),
+          "solution length 1, 0 cells expanded\n0\n");
+      t.checkExpect(server.solutions.size(), 2);
+      // the maze as a MazeFile
+      HttpResponse<byte[]> file = request("GET", base + "/maze?rows=9&columns=5&seed=4");
+      byte[] expected = new byte[(int) MazeFile.fileSize(45)];
+      MazeFile.write(java.nio.ByteBuffer.wrap(expected), new MazeEngine(9, 5, 4L), 4L);
+      t.checkExpect(file.statusCode(), 200);
+      t.checkExpect(file.body(), expected);
+      t.checkExpect(file.headers().firstValue("Content-Type").get(),
+          "application/octet-stream");
+      // only the mazes used most recently are kept
+      t.checkExpect(server.mazes.size(), 2);
+      t.checkExpect(server.mazes.containsKey("9x5:4"), true);
+      t.checkExpect(server.mazes.containsKey("3x3:5"), false);
+
+      String[] bad = {"/solve?rows=3&columns=x&seed=5", "/solve?rows=3&seed=5",
+          "/solve?rows=3&columns=3&seed=5&search=nope", "/maze?rows=200&columns=200&seed=1",
+          "/generate?rows=0&columns=3&seed=1", "/generate?rows"};
+      String[] why = {"For input string: \"x\"\n", "missing columns\n",
+          "unknown search: nope\n", "a maze can have at most 10000 cells\n",
+          "rows and columns must be at least 1\n", "expected name=value, got rows\n"};
+      for (int i = 0; i < bad.length; i++) {
+        t.checkExpect(request("GET", base + bad[i]).statusCode(), 400);
+        t.checkExpect(get(base + bad[i]), why[i]);
+      }
+      t.checkExpect(request("DELETE", base + "/generate?rows=3&columns=3&seed=5")
+          .statusCode(), 405);
+
+      // many requests in flight at once all get answers
+      MazeLoadClient load = new MazeLoadClient(server.port(), 16);
+      t.checkExpect(load.uri("solve", 4, 6, 3, 7).toString(),
+          base + "/solve?rows=4&columns=6&seed=1");
+      LoadReport report = load.run("solve", 200, 20, 20, 5);
+      t.checkExpect(report.failures, 0);
+      t.checkExpect(report.latencies.length, 200);
+      t.checkExpect(report.latencies[0] > 0, true);
+      t.checkExpect(load.run("maze", 10, 500, 500, 1).failures, 10);
+    }
+    finally {
+      server.stop();
+    }
+    t.checkConstructorException(new IllegalArgumentException("threads must be at least 1"),
+        "MazeServer", 0, 0, 100, 1);
+    t.checkConstructorException(new IllegalArgumentException("inFlight must be at least 1"),
+        "MazeLoadClient", 80, 0);
+  }
+
+  void testLoadReport(Tester t) {
+    LoadReport report = new LoadReport(new long[] {5000000, 1000000, 3000000, 2000000},
+        1, 2000000000L);
+    t.checkExpect(report.latencies, new long[] {1000000, 2000000, 3000000, 5000000});
+    t.checkExpect(report.percentile(0.5), 2000000L);
+    t.checkExpect(report.percentile(0.99), 5000000L);
+    t.checkExpect(report.percentile(0.0), 1000000L);
+    t.checkExpect(report.throughput(), 2.0);
+    t.checkExpect(report.toString(), "4 requests, 1 failed, in 2000.0 ms (2.0 requests/s); "
+        + "latency p50 2.0 ms, p99 5.0 ms, max 5.0 ms");
+    t.checkExpect(new LoadReport(new long[0], 0, 1).percentile(0.99), 0L);
+  }
+
+  void testDistanceField(Tester t) {
+    MazeEngine e = new MazeEngine(30, 20, new Random(7));
+    DistanceField d = new DistanceField(e);
+    int[] path = e.bfs();
+    // the way from the start is the bfs solution, in the other order
+    int[] expected = new int[path.length + 2];
+    for (int i = 0; i < path.length; i++) {
+      expected[path.length - i] = path[i];
+    }
+    expected[path.length + 1] = 599;
+    t.checkExpect(d.remainingPath(0), expected);
+    t.checkExpect(d.distance(0), path.length + 1);
+    t.checkExpect(d.nextHop(0), expected[1]);
+    t.checkExpect(d.distance(599), 0);
+    t.checkExpect(d.nextHop(599), -1);
+    t.checkExpect(d.remainingPath(599), new int[] {599});
+    // every cell is one step further than its next hop, which is an open neighbor
+    boolean consistent = true;
+    for (int cell = 0; cell < 599; cell++) {
+      int next = d.nextHop(cell);
+      boolean open = false;
+      for (int dir = 0; dir < 4; dir++) {
+        open |= e.openNeighbor(cell, dir) == next;
+      }
+      consistent &= open && d.distance(cell) == d.distance(next) + 1;
+    }
+    t.checkExpect(consistent, true);
+    t.checkExpect(new DistanceField(new MazeEngine(1, 1, new Random(1))).remainingPath(0),
+        new int[] {0});
+  }
+
+  // is the path a walk through open walls from its first cell to its last, never coming
+  // back to a cell? in a perfect maze, there is only one such walk between two cells
+  boolean isSimplePath(MazeEngine e, int[] path) {
+    HashSet<Integer> seen = new HashSet<Integer>();
+    for (int i = 0; i < path.length; i++) {
+      if (!seen.add(path[i])) {
+        return false;
+      }
+      if (i > 0) {
+        boolean open = false;
+        for (int dir = 0; dir < 4; dir++) {
+          open |= e.openNeighbor(path[i - 1], dir) == path[i];
+        }
+        if (!open) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  void testLcaIndex(Tester t) {
+    MazeEngine e = new MazeEngine(30, 20, new Random(7));
+    LcaIndex index = new LcaIndex(e);
+    t.checkExpect(index.distance(0, 599), e.bfs().length + 1);
+    t.checkExpect(index.lca(0, 599), 599);
+    t.checkExpect(index.distance(42, 42), 0);
+    t.checkExpect(index.path(42, 42), new int[] {42});
+    t.checkExpect(index.climb(0, index.field.distance(0)), 599);
+    t.checkExpect(index.climb(0, 1), index.field.nextHop(0));
+    Random r = new Random(3);
+    boolean right = true;
+    for (int i = 0; i < 200; i++) {
+      int a = r.nextInt(600);
+      int b = r.nextInt(600);
+      int[] path = index.path(a, b);
+      right &= path[0] == a && path[path.length - 1] == b && isSimplePath(e, path)
+          && path.length == index.distance(a, b) + 1
+          && index.distance(a, b) == index.distance(b, a);
+    }
+    t.checkExpect(right, true);
+    // one cell, and a single line of cells
+    t.checkExpect(new LcaIndex(new MazeEngine(1, 1, new Random(1))).path(0, 0), new int[] {0});
+    t.checkExpect(new LcaIndex(new MazeEngine(1, 5, new Random(1))).path(3, 1),
+        new int[] {3, 2, 1});
+    t.checkExpect(new LcaIndex(new MazeEngine(1, 5, new Random(1))).distance(0, 4), 4);
+  }
+
+  void testHint(Tester t) {
+    init();
+    DistanceField d = this.maze1.toFinish();
+    t.checkExpect(this.maze1.toFinish() == d, true);
+    t.checkExpect(this.maze1.remainingPath(this.maze1.cell(0)),
+        this.maze1.toCells(d.remainingPath(0)));
+    this.maze1.onKeyEvent("h");
+    Cell next = this.maze1.cell(d.nextHop(0));
+    t.checkExpect(this.maze1.hint, next);
+    t.checkExpect(next.color(), Color.orange);
+    t.checkExpect(this.maze1.hintColor, Color.white);
+    // moving clears the hint
+    this.maze1.onKeyEvent("up");
+    t.checkExpect(this.maze1.hint, null);
+    t.checkExpect(next.color(), Color.white);
+    // following the hints always reaches the finish
+    Cell finish = this.maze1.cell(8);
+    for (int i = 0; i < 8 && !this.maze1.currentCell.equals(finish); i++) {
+      this.maze1.onKeyEvent("h");
+      Cell c = this.maze1.currentCell;
+      Cell h = this.maze1.hint;
+      String key = h.equals(c.neighbor(0)) ? "up" : h.equals(c.neighbor(3)) ? "down"
+          : h.equals(c.neighbor(1)) ? "left" : "right";
+      this.maze1.onKeyEvent(key);
+      t.checkExpect(this.maze1.currentCell, h);
+    }
+    t.checkExpect(this.maze1.currentCell, finish);
+    // there is no move left from the finish
+    this.maze1.onKeyEvent("h");
+    t.checkExpect(this.maze1.hint, null);
+    this.maze1.onKeyEvent("r");
+    t.checkExpect(this.maze1.toFinish, null);
+  }
+
+  void testMazeMetrics(Tester t) throws Exception {
+    MazeMetrics.reset();
+    new MazeEngine(10, 10, new Random(1)).bfs();
+    // nothing is recorded while recording is off
+    t.checkExpect(MazeMetrics.snapshot().isEmpty(), true);
+    t.checkExpect(MazeMetrics.start(), 0L);
+    t.checkExpect(MazeMetrics.lap("phase", 5), 0L);
+
+    MazeMetrics.setEnabled(true);
+    try {
+      MazeEngine e = new MazeEngine(10, 10, new Random(1));
+      Map<String, Long> after = MazeMetrics.snapshot();
+      t.checkExpect(after.get("engine.initEdges.count"), 1L);
+      t.checkExpect(after.get("engine.sortEdges.count"), 1L);
+      t.checkExpect(after.get("engine.calculateEdges.count"), 1L);
+      t.checkExpect(after.get("engine.initWalls.count"), 1L);
+      t.checkExpect(after.get("engine.initEdges.nanos") >= 0, true);
+      // Kruskals Algorithm tries to union every edge it looks at
+      t.checkExpect(after.get("unions"), after.get("edgesExamined"));
+      t.checkExpect(after.get("edgesExamined") >= 120, true);
+      t.checkExpect(after.get("findHops") >= 0, true);
+      e.bfs();
+      int expanded = e.nodesExpanded;
+      e.dfs();
+      after = MazeMetrics.snapshot();
+      t.checkExpect(after.get("engine.searchHelp.count"), 2L);
+      t.checkExpect(after.get("cellsExpanded"), (long) (expanded + e.nodesExpanded));
+      t.checkExpect(after.get("worklistPeak") >= 1, true);
+      new Maze(3, 3, new Random(5));
+      after = MazeMetrics.snapshot();
+      t.checkExpect(after.get("maze.reset.count"), 1L);
+      t.checkExpect(after.get("maze.initCells.count"), 1L);
+      t.checkExpect(after.get("engine.initEdges.count"), 2L);
+      t.checkExpect(after.get("maze.reset.maxNanos")
+          >= after.get("maze.initCells.maxNanos"), true);
+      // a phase that started while recording was off is left out
+      MazeMetrics.lap("phase", 0);
+      t.checkExpect(MazeMetrics.snapshot().containsKey("phase.count"), false);
+      MazeMetrics.max("gauge", 3);
+      MazeMetrics.max("gauge", 2);
+      t.checkExpect(MazeMetrics.snapshot().get("gauge"), 3L);
+
+      MazeMetrics.register();
+      MazeMetrics.register();
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(MazeMetrics.OBJECT_NAME);
+      t.checkExpect(server.getAttribute(name, "Enabled"), true);
+      t.checkExpect(server.getAttribute(name, "Snapshot") != null, true);
+      server.invoke(name, "reset", new Object[0], new String[0]);
+      t.checkExpect(MazeMetrics.snapshot().isEmpty(), true);
+    }
+    finally {
+      MazeMetrics.setEnabled(false);
+      MazeMetrics.reset();
+    }
+  }
+
+  // returns the events with the given name the action leaves in a flight recording
+  ArrayList<RecordedEvent> record(String eventName, Runnable action) throws IOException {
+    Path file = Files.createTempFile("maze", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(eventName);
+      recording.start();
+      action.run();
+      recording.stop();
+      recording.dump(file);
+      ArrayList<RecordedEvent> events = new ArrayList<RecordedEvent>();
+      for (RecordedEvent e : RecordingFile.readAllEvents(file)) {
+        if (e.getEventType().getName().equals(eventName)) {
+          events.add(e);
+        }
+      }
+      return events;
+    }
+    finally {
+      Files.delete(file);
+    }
+  }
+
+  void testGenerationEvent(Tester t) throws IOException {
+    ArrayList<RecordedEvent> events = record("maze.Generation",
+        () -> new MazeEngine(30, 20, 7L));
+    t.checkExpect(events.size(), 1);
+    RecordedEvent e = events.get(0);
+    t.checkExpect(e.getInt("rows"), 30);
+    t.checkExpect(e.getInt("columns"), 20);
+    t.checkExpect(e.getLong("seed"), 7L);
+    t.checkExpect(e.getBoolean("seeded"), true);
+    t.checkExpect(e.getInt("tiles"), 0);
+    t.checkExpect(e.getDuration("calculateEdges").isNegative(), false);
+    t.checkExpect(e.getDuration().compareTo(e.getDuration("initWalls")) >= 0, true);
+
+    events = record("maze.Generation", () -> new MazeEngine(30, 20, new Random(7), 4));
+    t.checkExpect(events.get(0).getBoolean("seeded"), false);
+    t.checkExpect(events.get(0).getInt("tiles"), 4);
+    // nothing is recorded for events the recording doesn't ask for
+    t.checkExpect(record("maze.Solve", () -> new MazeEngine(3, 3, 1L)).size(), 0);
+  }
+
+  void testSeededEngine(Tester t) {
+    t.checkExpect(new MazeEngine(30, 20, 7L).walls, new MazeEngine(30, 20, new Random(7)).walls);
+    t.checkExpect(new MazeEngine(30, 20, 7L, 3).walls,
+        new MazeEngine(30, 20, new Random(7), 3).walls);
+    t.checkExpect(new MazeEngine(30, 20, 7L).seed, 7L);
+    t.checkExpect(new MazeEngine(30, 20, new Random(7)).seeded, false);
+    t.checkExpect(new Maze(4, 3, 9).engine.seed, 9L);
+  }
+
+  void testSolveEvent(Tester t) throws IOException {
+    MazeEngine engine = new MazeEngine(30, 20, 7L);
+    ArrayList<RecordedEvent> events = record("maze.Solve", () -> {
+      engine.solve("bfs");
+      engine.solve("astar");
+    });
+    t.checkExpect(events.size(), 2);
+    t.checkExpect(events.get(0).getString("algorithm"), "bfs");
+    t.checkExpect(events.get(0).getInt("pathLength"), engine.bfs().length + 2);
+    t.checkExpect(events.get(0).getInt("cellsExpanded"), engine.nodesExpanded);
+    t.checkExpect(events.get(1).getString("algorithm"), "astar");
+    t.checkExpect(events.get(1).getInt("rows"), 30);
+  }
+
+  void testFrameEvent(Tester t) throws IOException {
+    init();
+    ArrayList<RecordedEvent> events = record("maze.Frame", () -> {
+      this.maze1.makeScene();
+      this.maze1.cell(4).changeColor(Color.red);
+      this.maze1.makeScene();
+    });
+    t.checkExpect(events.size(), 2);
+    t.checkExpect(events.get(0).getBoolean("fullRedraw"), true);
+    t.checkExpect(events.get(0).getInt("cellsDrawn"), 9);
+    t.checkExpect(events.get(1).getBoolean("fullRedraw"), false);
+    t.checkExpect(events.get(1).getInt("cellsDrawn"), 1);
+    t.checkExpect(this.maze1.cellsDrawn, 1);
+    t.checkExpect(this.maze1.wallsDrawn > 0, true);
+  }
+
+  void testUnionFindHops(Tester t) {
+    UnionFind u = new UnionFind(4);
+    t.checkExpect(u.hops(2), 0);
+    u.union(0, 1);
+    u.union(2, 3);
+    u.union(1, 3);
+    // 3 hangs off 2, which hangs off 0
+    t.checkExpect(u.hops(3), 2);
+    t.checkExpect(u.hops(0), 0);
+    // counting changes nothing
+    t.checkExpect(u.parent[3], 2);
+    u.find(3);
+    t.checkExpect(u.hops(3), 1);
+    u.reset();
+    t.checkExpect(u.hops(3), 0);
+  }
+
+  void testSeededMaze(Tester t) {
+    Maze m = new Maze(4, 3, 9);
+    t.checkExpect(m.seeded, true);
+    t.checkExpect(m.engine.walls, new MazeEngine(4, 3, new Random(9)).walls);
+    t.checkExpect(m.cached("bfs"), null);
+    m.expansionsPerTick = 100;
+    m.onKeyEvent("b");
+    m.onTick();
+    int[] path = new MazeEngine(4, 3, new Random(9)).bfs();
+    t.checkExpect(m.cached("bfs").path(4, 3), path);
+    // pressing b again draws the solution without searching
+    m.onKeyEvent("b");
+    t.checkExpect(m.search, null);
+    t.checkExpect(m.lastSearch, "bfs");
+    t.checkExpect(m.engine.nodesExpanded, m.cached("bfs").nodesExpanded);
+    // a new maze, then the same one again, which still has its solution cached
+    m.reset(4, 3, 10);
+    t.checkExpect(m.cached("bfs"), null);
+    m.reset(4, 3, 9);
+    t.checkExpect(m.cached("bfs").path(4, 3), path);
+    // a perfect maze has only one solution, whichever search finds it
+    t.checkExpect(m.astar(), m.toCells(path));
+    t.checkExpect(m.cached("astar") != null, true);
+    // solutions are kept under the names of the searches, not the names shown
+    t.checkExpect(m.cached("A*"), null);
+    m.onKeyEvent("t");
+    t.checkExpect(m.cached("two-way") != null, true);
+    t.checkExpect(m.cached("two-way bfs"), null);
+    int hits = m.solutions.hits;
+    m.onKeyEvent("t");
+    t.checkExpect(m.solutions.hits, hits + 1);
+    // nothing is cached for a maze from an unknown Random
+    m.reset(4, 3, new Random(9));
+    t.checkExpect(m.seeded, false);
+    t.checkExpect(m.cached("bfs"), null);
+    m.bfs();
+    t.checkExpect(m.solutions.size(), 3);
+    m.onKeyEvent("r");
+    t.checkExpect(m.seeded, true);
+  }
+
+  void testExpansionsPerTick(Tester t) {
+    init();
+    t.checkExpect(this.maze1.expansionsPerTick, 1);
+    t.checkExpect(new Maze(300, 200, new Random(1)).expansionsPerTick, 200);
+    this.maze1.onKeyEvent("+");
+    t.checkExpect(this.maze1.expansionsPerTick, 2);
+    this.maze1.onKeyEvent("=");
+    this.maze1.onKeyEvent("+");
+    this.maze1.onKeyEvent("+");
+    // never more than the whole board
+    t.checkExpect(this.maze1.expansionsPerTick, 9);
+    this.maze1.onKeyEvent("-");
+    t.checkExpect(this.maze1.expansionsPerTick, 4);
+    this.maze1.onKeyEvent("-");
+    this.maze1.onKeyEvent("-");
+    this.maze1.onKeyEvent("-");
+    t.checkExpect(this.maze1.expansionsPerTick, 1);
+  }
+
+  void testNodesExpanded(Tester t) {
+    init();
+    t.checkExpect(this.maze1.engine.nodesExpanded, 0);
+    this.maze1.bfs();
+    t.checkExpect(this.maze1.engine.nodesExpanded, 7);
+    this.maze1.reset(3, 3, new Random(5));
+    t.checkExpect(this.maze1.engine.nodesExpanded, 0);
+    t.checkExpect(this.maze1.lastSearch, null);
+
+    // the last search is reported at the top of the board
+    Maze expected = new Maze(2, 2, new Random(5));
+    expected.cell(2).changeColor(Color.yellow);
+    WorldScene ws = expected.makeScene();
+    ws.placeImageXY(new TextImage("dfs: 3 expanded", 18, Color.black), 40, 10);
+    this.maze2.dfs();
+    t.checkExpect(this.maze2.makeScene(), ws);
+  }
+
+  void testToCells(Tester t) {
+    init();
+    ArrayList<Cell> cells = new ArrayList<Cell>();
+    cells.add(this.maze1.cell(5));
+    cells.add(this.maze1.cell(0));
+    t.checkExpect(this.maze1.toCells(new int[] {5, 0}), cells);
+    t.checkExpect(this.maze1.toCells(new int[0]), new ArrayList<Cell>());
+  }
+
+  // MazeEngine Tests ------------------------------------------------------------
+
+  void testEngineSizes(Tester t) {
+    init();
+    t.checkExpect(this.maze1.engine.vertexCount(), 16);
+    t.checkExpect(this.maze1.engine.cellCount(), 9);
+    t.checkExpect(this.maze3.engine.vertexCount(), 6);
+    t.checkExpect(this.maze3.engine.cellCount(), 2);
+    t.checkExpect(this.maze1.engine.vertexX(9), 2);
+    t.checkExpect(this.maze1.engine.vertexY(9), 1);
+    t.checkExpect(this.maze3.engine.vertexX(5), 1);
+    t.checkExpect(this.maze3.engine.vertexY(5), 2);
+  }
+
+  void testEdgeIds(Tester t) {
+    init();
+    MazeEngine e = this.maze1.engine;
+    // 2 * 6 goes down from vertex 6, 2 * 6 + 1 goes right
+    t.checkExpect(e.edgeVertex1(12), 6);
+    t.checkExpect(e.edgeVertex2(12), 7);
+    t.checkExpect(e.isHorizontal(12), false);
+    t.checkExpect(e.edgeVertex1(13), 6);
+    t.checkExpect(e.edgeVertex2(13), 10);
+    t.checkExpect(e.isHorizontal(13), true);
+  }
+
+  void testEngineInitEdges(Tester t) {
+    init();
+    MazeEngine e = this.maze1.engine;
+    t.checkExpect(e.edgeCount, 24);
+    t.checkExpect(e.edges[0], 23);
+    t.checkExpect(e.weights[23], (byte) 1);
+    t.checkExpect(e.edges[23], 13);
+    t.checkExpect(e.weights[13], (byte) 6);
+    t.checkExpect(this.maze2.engine.edgeCount, 12);
+    t.checkExpect(this.maze2.engine.edges[0], 5);
+    t.checkExpect(this.maze2.engine.edges[11], 6);
+    // edges are ordered by weight (generating the maze changes the weight of edge 0)
+    e.initEdges();
+    e.sortEdges();
+    for (int i = 1; i < e.edgeCount; i++) {
+      t.checkExpect(e.weights[e.edges[i - 1]] <= e.weights[e.edges[i]], true);
+    }
+  }
+
+  void testEngineSortEdges(Tester t) {
+    init();
+    MazeEngine e = this.maze1.engine;
+    for (int i = 0; i < e.edgeCount / 2; i++) {
+      int temp = e.edges[i];
+      e.edges[i] = e.edges[e.edgeCount - 1 - i];
+      e.edges[e.edgeCount - 1 - i] = temp;
+    }
+    t.checkExpect(e.weights[e.edges[0]], (byte) 6);
+    e.sortEdges();
+    t.checkExpect(e.edgeCount, 24);
+    for (int i = 1; i < e.edgeCount; i++) {
+      t.checkExpect(e.weights[e.edges[i - 1]] <= e.weights[e.edges[i]], true);
+    }
+  }
+
+  void testEngineAddEdge(Tester t) {
+    init();
+    MazeEngine e = this.maze3.engine;
+    e.edgeCount = 0;
+    e.addEdge(1, 3);
+    e.addEdge(4, 1);
+    t.checkExpect(e.edgeCount, 2);
+    t.checkExpect(e.edges[0], 1);
+    t.checkExpect(e.edges[1], 4);
+    t.checkExpect(e.weights[1], (byte) 3);
+    t.checkExpect(e.weights[4], (byte) 1);
+  }
+
+  void testEngineCalculateEdges(Tester t) {
+    init();
+    MazeEngine e = this.maze2.engine;
+    t.checkExpect(e.tree.length, 9);
+    t.checkExpect(e.tree[0], 5);
+    // the left wall of the start is added last
+    t.checkExpect(e.tree[8], 0);
+    t.checkExpect(e.weights[0], (byte) 1);
+    // every vertex is connected once the maze is generated
+    t.checkExpect(e.representatives.find(0), e.representatives.find(8));
+    e.calculateEdges();
+    t.checkExpect(e.tree[0], 5);
+  }
+
+  // is the maze perfect, with one path between any two cells and the border closed?
+  boolean isPerfect(MazeEngine e) {
+    UnionFind cells = new UnionFind(e.cellCount());
+    int passages = 0;
+    for (int c = 0; c < e.cellCount(); c++) {
+      int x = c / e.columns;
+      int y = c % e.columns;
+      if ((x == 0 && (e.walls[c] & MazeEngine.LEFT) == 0)
+          || (x == e.rows - 1 && (e.walls[c] & MazeEngine.RIGHT) == 0)
+          || (y == 0 && (e.walls[c] & MazeEngine.TOP) == 0)
+          || (y == e.columns - 1 && (e.walls[c] & MazeEngine.BOTTOM) == 0)) {
+        return false;
+      }
+      for (int dir = 2; dir <= 3; dir++) {
+        int next = e.openNeighbor(c, dir);
+        if (next != -1) {
+          passages++;
+          if (!cells.union(c, next)) {
+            return false;
+          }
+        }
+      }
+    }
+    return passages == e.cellCount() - 1;
+  }
+
+  void testGenerateTiled(Tester t) {
+    init();
+    t.checkExpect(isPerfect(this.maze1.engine), true);
+    for (int tiles = 1; tiles <= 12; tiles++) {
+      MazeEngine e = new MazeEngine(9, 7, new Random(tiles), tiles);
+      t.checkExpect(e.tree.length, e.vertexCount());
+      t.checkExpect(e.tree[e.tree.length - 1], 0);
+      t.checkExpect(isPerfect(e), true);
+    }
+    t.checkExpect(isPerfect(new MazeEngine(1, 1, new Random(3), 4)), true);
+    t.checkExpect(isPerfect(new MazeEngine(1, 30, new Random(3), 2)), true);
+    t.checkExpect(isPerfect(new MazeEngine(40, 1, new Random(3), 8)), true);
+    t.checkExpect(isPerfect(new MazeEngine(200, 150, new Random(5), 16)), true);
+    // the same seed and number of tiles always make the same maze
+    t.checkExpect(new MazeEngine(30, 20, new Random(8), 4).walls,
+        new MazeEngine(30, 20, new Random(8), 4).walls);
+    t.checkConstructorException(new IllegalArgumentException("tiles must be at least 1"),
+        "TiledGenerator", this.maze1.engine, 0);
+  }
+
+  void testTiledSeams(Tester t) {
+    MazeEngine e = new MazeEngine(40, 30, new Random(3), 4);
+    TiledGenerator g = new TiledGenerator(new MazeEngine(40, 30, new Random(3)), 4);
+    // walls right from each column of vertices, leaving out the border
+    int[] walls = new int[e.rows];
+    for (int id : e.tree) {
+      int v = e.edgeVertex1(id);
+      int y = e.vertexY(v);
+      if (e.isHorizontal(id) && y > 0 && y < e.columns) {
+        walls[e.vertexX(v)]++;
+      }
+    }
+    int total = 0;
+    for (int w : walls) {
+      total += w;
+    }
+    // the columns where one tile meets the next get about as many walls as the others,
+    // instead of none at all
+    for (int k = 1; k < g.tiles; k++) {
+      int seam = g.tileStarts[k] - 1;
+      t.checkExpect(walls[seam] * 3 >= total / e.rows, true);
+    }
+  }
+
+  void testInitWalls(Tester t) {
+    init();
+    byte[] walls = this.maze2.engine.walls;
+    t.checkExpect(walls[0], (byte) (MazeEngine.TOP | MazeEngine.LEFT));
+    t.checkExpect(walls[1], (byte) (MazeEngine.LEFT | MazeEngine.RIGHT | MazeEngine.BOTTOM));
+    t.checkExpect(walls[2], (byte) (MazeEngine.TOP | MazeEngine.RIGHT));
+    t.checkExpect(walls[3], (byte) (MazeEngine.LEFT | MazeEngine.RIGHT | MazeEngine.BOTTOM));
+  }
+
+  void testOpenNeighbor(Tester t) {
+    init();
+    MazeEngine e = this.maze1.engine;
+    t.checkExpect(e.openNeighbor(0, 0), -1);
+    t.checkExpect(e.openNeighbor(0, 1), -1);
+    t.checkExpect(e.openNeighbor(0, 2), 3);
+    t.checkExpect(e.openNeighbor(0, 3), 1);
+    t.checkExpect(e.openNeighbor(1, 2), -1);
+    t.checkExpect(e.openNeighbor(8, 2), -1);
+  }
+
+  void testManhattan(Tester t) {
+    init();
+    t.checkExpect(this.maze1.engine.manhattan(0, 8), 4);
+    t.checkExpect(this.maze1.engine.manhattan(5, 3), 2);
+    t.checkExpect(this.maze1.engine.manhattan(4, 4), 0);
   }
 
   void testSearchHelp(Tester t) {
     init();
     //dfs
-    ArrayList<Cell> path1 = new ArrayList<Cell>();
-    path1.add(this.maze2.allCells.get(2));
-    t.checkExpect(this.maze2.searchHelp(new Stack<Cell>()), path1);
-    ArrayList<Cell> path2 = new ArrayList<Cell>();
-    path2.add(this.maze3.allCells.get(0));
-    t.checkExpect(this.maze3.searchHelp(new Stack<Cell>()), path2);
-    ArrayList<Cell> path5 = new ArrayList<Cell>();
-    path5.add(this.maze1.allCells.get(7));
-    path5.add(this.maze1.allCells.get(6));
-    path5.add(this.maze1.allCells.get(3));
-    t.checkExpect(this.maze1.searchHelp(new Stack<Cell>()), path5);
+    t.checkExpect(this.maze2.engine.searchHelp(new IntStack(1)), new int[] {2});
+    t.checkExpect(this.maze3.engine.searchHelp(new IntStack(1)), new int[0]);
+    t.checkExpect(this.maze1.engine.searchHelp(new IntStack(1)), new int[] {5, 2, 1});
 
     // bfs
-    ArrayList<Cell> path3 = new ArrayList<Cell>();
-    path3.add(this.maze2.allCells.get(2));
-    t.checkExpect(this.maze2.searchHelp(new Queue<Cell>()), path3);
-    ArrayList<Cell> path4 = new ArrayList<Cell>();
-    path4.add(this.maze3.allCells.get(0));
-    t.checkExpect(this.maze3.searchHelp(new Queue<Cell>()), path4);
-    ArrayList<Cell> path6 = new ArrayList<Cell>();
-    path6.add(this.maze1.allCells.get(7));
-    path6.add(this.maze1.allCells.get(6));
-    path6.add(this.maze1.allCells.get(3));
-    t.checkExpect(this.maze1.searchHelp(new Queue<Cell>()), path6);
+    t.checkExpect(this.maze2.engine.searchHelp(new IntQueue(1)), new int[] {2});
+    t.checkExpect(this.maze3.engine.searchHelp(new IntQueue(1)), new int[0]);
+    t.checkExpect(this.maze1.engine.searchHelp(new IntQueue(1)), new int[] {5, 2, 1});
+    t.checkExpect(this.maze1.engine.nodesExpanded, 7);
+    t.checkExpect(this.maze1.engine.bfs(), new int[] {5, 2, 1});
+    t.checkExpect(this.maze1.engine.dfs(), new int[] {5, 2, 1});
+  }
+
+  void testSearchStepper(Tester t) {
+    init();
+    SearchStepper s = new SearchStepper(this.maze1.engine, new IntQueue(1));
+    IntQueue seen = new IntQueue(1);
+    t.checkExpect(s.step(3, cell -> seen.add(cell)), false);
+    t.checkExpect(s.expanded, 3);
+    t.checkExpect(seen.remove(), 0);
+    t.checkExpect(seen.remove(), 3);
+    t.checkExpect(s.path, null);
+    t.checkExpect(s.step(0, null), false);
+    t.checkExpect(s.expanded, 3);
+    // picking up where it left off, it does the same work as a search run all at once
+    t.checkExpect(s.step(3, null), false);
+    t.checkExpect(s.step(3, null), true);
+    t.checkExpect(s.expanded, 7);
+    t.checkExpect(s.path, new int[] {5, 2, 1});
+    t.checkExpect(s.step(3, null), true);
+    t.checkExpect(s.expanded, 7);
+    SearchStepper single = new SearchStepper(new MazeEngine(1, 1, new Random(2)),
+        new IntStack(1));
+    t.checkExpect(single.step(1, null), true);
+    t.checkExpect(single.path, new int[0]);
   }
 
   void testReconstruct(Tester t) {
     init();
-    HashMap<Cell, Cell> map = new HashMap<Cell, Cell>();
-    map.put(this.maze2.allCells.get(0), this.maze2.allCells.get(1));
-    map.put(this.maze2.allCells.get(1), this.maze2.allCells.get(2));
-    map.put(this.maze2.allCells.get(2), this.maze2.allCells.get(2));
-    ArrayList<Cell> path = new ArrayList<Cell>();
-    path.add(this.maze2.allCells.get(0));
-    path.add(this.maze2.allCells.get(1));
-    path.add(this.maze2.allCells.get(2));
-    t.checkExpect(this.maze2.reconstruct(map, this.maze2.allCells.get(0), 
-        new ArrayList<Cell>()), new ArrayList<Cell>());
-    ArrayList<Cell> list = new ArrayList<Cell>();
-    list.add(this.maze2.allCells.get(0));
-    t.checkExpect(this.maze2.reconstruct(map, this.maze2.allCells.get(1), 
-        new ArrayList<Cell>()), list);
+    int[] cameFrom = new int[] {0, 0, 1, 2};
+    t.checkExpect(this.maze2.engine.reconstruct(cameFrom, 0), new int[0]);
+    t.checkExpect(this.maze2.engine.reconstruct(cameFrom, 1), new int[0]);
+    t.checkExpect(this.maze2.engine.reconstruct(cameFrom, 3), new int[] {2, 1});
+  }
+
+  void testEngineAStar(Tester t) {
+    init();
+    t.checkExpect(this.maze1.engine.astar(), new int[] {5, 2, 1});
+    t.checkExpect(this.maze1.engine.nodesExpanded, 6);
+    t.checkExpect(this.maze3.engine.astar(), new int[0]);
+    t.checkExpect(this.maze3.engine.nodesExpanded, 1);
+    // the maze is a tree, so every search finds the same path
+    MazeEngine big = new MazeEngine(30, 20, new Random(7));
+    t.checkExpect(big.astar(), big.bfs());
+  }
+
+  void testEngineBidirectional(Tester t) {
+    init();
+    t.checkExpect(this.maze1.engine.bidirectional(), new int[] {5, 2, 1});
+    t.checkExpect(this.maze3.engine.bidirectional(), new int[0]);
+    t.checkExpect(new MazeEngine(1, 1, new Random(5)).bidirectional(), new int[0]);
+    MazeEngine big = new MazeEngine(30, 20, new Random(7));
+    t.checkExpect(big.bidirectional(), big.bfs());
+  }
+
+  void testJoinPaths(Tester t) {
+    init();
+    // 0 -> 1 from the start, 3 <- 2 from the finish
+    int[] cameFromStart = new int[] {0, 0, 0, 0};
+    int[] cameFromEnd = new int[] {0, 0, 3, 3};
+    t.checkExpect(this.maze2.engine.joinPaths(cameFromStart, cameFromEnd, 1, 2),
+        new int[] {2, 1});
+    t.checkExpect(this.maze2.engine.joinPaths(cameFromStart, cameFromEnd, 0, 3), new int[0]);
+  }
+
+  void testSolve(Tester t) {
+    init();
+    t.checkExpect(this.maze1.engine.solve("bfs"), new int[] {5, 2, 1});
+    t.checkExpect(this.maze1.engine.solve("dfs"), new int[] {5, 2, 1});
+    t.checkExpect(this.maze1.engine.solve("astar"), new int[] {5, 2, 1});
+    t.checkExpect(this.maze1.engine.solve("two-way"), new int[] {5, 2, 1});
+    t.checkException(new IllegalArgumentException("unknown search: foo"),
+        this.maze1.engine, "solve", "foo");
+  }
+
+  void testSolutionLength(Tester t) {
+    init();
+    t.checkExpect(this.maze1.engine.solutionLength(new int[] {5, 2, 1}), 5);
+    t.checkExpect(this.maze3.engine.solutionLength(new int[0]), 2);
+    t.checkExpect(new MazeEngine(1, 1, new Random(1)).solutionLength(new int[0]), 1);
+  }
+
+  // MazeCli Tests ---------------------------------------------------------------
+
+  void testMillis(Tester t) {
+    t.checkExpect(MazeCli.millis(1500000), "1.5");
+    t.checkExpect(MazeCli.millis(0), "0.0");
+  }
+
+  void testCliSizes(Tester t) {
+    IllegalArgumentException tooSmall =
+        new IllegalArgumentException("rows and columns must be at least 1");
+    t.checkException(tooSmall, new MazeCli(), "run",
+        (Object) new String[] {"offheap", "0", "5", "1"});
+    t.checkException(tooSmall, new MazeCli(), "run",
+        (Object) new String[] {"stream", "5", "-1", "1", "never-written.maze"});
+    t.checkException(tooSmall, new MazeCli(), "run",
+        (Object) new String[] {"pairs", "0", "0", "1", "1"});
+  }
+
+  void testMazeFile(Tester t) throws IOException {
+    init();
+    Path file = Files.createTempFile("maze", ".maze");
+    try {
+      MazeEngine e = new MazeEngine(13, 7, new Random(11));
+      MazeFile.save(file, e, 11);
+      t.checkExpect(Files.size(file), 20L + 23);
+      MappedMaze m = MazeFile.load(file);
+      t.checkExpect(m.rows, 13);
+      t.checkExpect(m.columns, 7);
+      t.checkExpect(m.seed, 11L);
+      t.checkExpect(m.readWalls(), e.walls);
+      for (int cell = 0; cell < e.cellCount(); cell++) {
+        for (int dir = 0; dir < 4; dir++) {
+          t.checkExpect(m.openNeighbor(cell, dir), e.openNeighbor(cell, dir));
+        }
+      }
+      // the searches run straight off the file
+      t.checkExpect(m.bfs(), e.bfs());
+      t.checkExpect(m.nodesExpanded, e.nodesExpanded);
+      t.checkExpect(m.astar(), e.astar());
+      t.checkExpect(m.bidirectional(), e.bidirectional());
+
+      MazeFile.save(file, this.maze3.engine, 5);
+      t.checkExpect(MazeFile.load(file).readWalls(), this.maze3.engine.walls);
+      Files.write(file, new byte[] {1, 2, 3});
+      t.checkException(new IOException(file + " is not a maze file"), new MazeFile(), "load",
+          file);
+      Files.write(file, new byte[20]);
+      t.checkException(new IOException(file + " is not a maze file"), new MazeFile(), "load",
+          file);
+    }
+    finally {
+      Files.delete(file);
+    }
+  }
+
+  // returns the maze the Eller generator makes, with all its lines in one engine
+  MazeEngine ellerMaze(int rows, int columns, long seed) throws IOException {
+    MazeEngine e = new MazeEngine(rows, columns);
+    e.walls = new byte[rows * columns];
+    new EllerGenerator(rows, columns, new Random(seed)).generate(
+        (x, walls) -> System.arraycopy(walls, 0, e.walls, x * columns, columns));
+    return e;
+  }
+
+  void testEllerGenerator(Tester t) throws IOException {
+    for (int seed = 0; seed < 10; seed++) {
+      t.checkExpect(isPerfect(ellerMaze(9, 7, seed)), true);
+    }
+    t.checkExpect(isPerfect(ellerMaze(1, 1, 3)), true);
+    t.checkExpect(isPerfect(ellerMaze(1, 30, 3)), true);
+    t.checkExpect(isPerfect(ellerMaze(40, 1, 3)), true);
+    t.checkExpect(isPerfect(ellerMaze(300, 50, 3)), true);
+    t.checkExpect(ellerMaze(12, 5, 6).walls, ellerMaze(12, 5, 6).walls);
+    t.checkExpect(ellerMaze(3, 3, 1).bfs() != null, true);
+    // the lines come in order, one array reused for all of them
+    IntQueue lines = new IntQueue(1);
+    byte[][] arrays = new byte[3][];
+    new EllerGenerator(3, 4, new Random(1)).generate((x, walls) -> {
+      lines.add(x);
+      arrays[x] = walls;
+    });
+    t.checkExpect(lines.remove(), 0);
+    t.checkExpect(lines.remove(), 1);
+    t.checkExpect(lines.remove(), 2);
+    t.checkExpect(arrays[0] == arrays[2], true);
+    t.checkConstructorException(new IllegalArgumentException(
+        "rows and columns must be at least 1"), "EllerGenerator", 0, 3, new Random());
+  }
+
+  void testMazeFileWriter(Tester t) throws IOException {
+    Path file = Files.createTempFile("maze", ".maze");
+    try {
+      // 5 cells a line, so the lines don't line up with the bytes
+      try (MazeFileWriter writer = new MazeFileWriter(file, 9, 5, 4)) {
+        new EllerGenerator(9, 5, new Random(4)).generate(writer);
+      }
+      t.checkExpect(Files.size(file), MazeFile.fileSize(45));
+      MappedMaze m = MazeFile.load(file);
+      t.checkExpect(m.seed, 4L);
+      t.checkExpect(m.readWalls(), ellerMaze(9, 5, 4).walls);
+      t.checkExpect(m.bfs(), ellerMaze(9, 5, 4).bfs());
+    }
+    finally {
+      Files.delete(file);
+    }
+  }
+
+  void testOffHeapMaze(Tester t) throws IOException {
+    OffHeapMaze m = new OffHeapMaze(9, 5, new Random(4));
+    MazeEngine e = ellerMaze(9, 5, 4);
+    t.checkExpect(m.readWalls(), e.walls);
+    t.checkExpect(m.buffer.isDirect(), true);
+    t.checkExpect(m.buffer.capacity(), 12);
+    t.checkExpect(OffHeapMaze.checkedBytes(1, Integer.MAX_VALUE), 1 << 29);
+    t.checkExpect(OffHeapMaze.checkedBytes(Integer.MAX_VALUE - 2, 1), 1 << 29);
+    // the same searches as on the heap, in the same order
+    t.checkExpect(m.bfs(), e.bfs());
+    t.checkExpect(m.nodesExpanded, e.nodesExpanded);
+    t.checkExpect(m.dfs(), e.dfs());
+    t.checkExpect(m.nodesExpanded, e.nodesExpanded);
+    for (int seed = 0; seed < 5; seed++) {
+      OffHeapMaze big = new OffHeapMaze(40, 30, new Random(seed));
+      MazeEngine onHeap = ellerMaze(40, 30, seed);
+      t.checkExpect(big.bfs(), onHeap.bfs());
+      t.checkExpect(big.dfs(), onHeap.dfs());
+      t.checkExpect(big.astar(), onHeap.astar());
+    }
+    t.checkExpect(new OffHeapMaze(1, 1, new Random(1)).bfs(), new int[0]);
+    t.checkExpect(new OffHeapMaze(1, 4, new Random(1)).dfs(), new int[] {2, 1});
+    t.checkConstructorException(new IllegalArgumentException(
+        "rows and columns must be at least 1"), "OffHeapMaze", 0, 3, new Random());
+    t.checkConstructorException(new IllegalArgumentException(
+        "a maze can have at most 2147483647 cells"), "OffHeapMaze", 50000, 50000,
+        new Random());
+  }
+
+  void testPackedMaze(Tester t) {
+    PackedMaze m = new PackedMaze(2, 3, java.nio.ByteBuffer.allocate(3), 1);
+    m.setBits(0, MazeFile.RIGHT_BIT);
+    m.setBits(4, MazeFile.BOTTOM_BIT | MazeFile.RIGHT_BIT);
+    m.setBits(5, MazeFile.BOTTOM_BIT);
+    t.checkExpect(m.buffer.get(0), (byte) 0);
+    t.checkExpect(m.buffer.get(1), (byte) 1);
+    t.checkExpect(m.buffer.get(2), (byte) 11);
+    t.checkExpect(m.hasWall(0, MazeFile.RIGHT_BIT), true);
+    t.checkExpect(m.hasWall(0, MazeFile.BOTTOM_BIT), false);
+    m.setBits(0, 0);
+    t.checkExpect(m.hasWall(0, MazeFile.RIGHT_BIT), false);
+    t.checkExpect(m.hasWall(4, MazeFile.RIGHT_BIT), true);
+    t.checkExpect(m.step(4, 0), 3);
+    t.checkExpect(m.step(4, 1), 1);
+    t.checkExpect(m.step(1, 2), 4);
+    t.checkExpect(m.step(4, 3), 5);
+  }
+
+  void testDirectIntQueue(Tester t) {
+    DirectIntQueue q = new DirectIntQueue(2);
+    t.checkExpect(q.isEmpty(), true);
+    q.add(1);
+    q.add(2);
+    t.checkExpect(q.remove(), 1);
+    // wraps round, then grows while wrapped
+    q.add(3);
+    q.add(4);
+    q.add(5);
+    t.checkExpect(q.contents.capacity(), 4);
+    t.checkExpect(q.contents.isDirect(), true);
+    t.checkExpect(q.remove(), 2);
+    t.checkExpect(q.remove(), 3);
+    t.checkExpect(q.remove(), 4);
+    t.checkExpect(q.remove(), 5);
+    t.checkExpect(q.isEmpty(), true);
+  }
+
+  void testDirectIntStack(Tester t) {
+    DirectIntStack s = new DirectIntStack(0);
+    t.checkExpect(s.isEmpty(), true);
+    s.add(1);
+    s.add(2);
+    s.add(3);
+    t.checkExpect(s.contents.capacity(), 4);
+    t.checkExpect(s.remove(), 3);
+    t.checkExpect(s.remove(), 2);
+    s.add(4);
+    t.checkExpect(s.remove(), 4);
+    t.checkExpect(s.remove(), 1);
+    t.checkExpect(s.isEmpty(), true);
+    t.checkExpect(DirectIntStack.grow(3), 6);
+    t.checkExpect(DirectIntStack.grow(Integer.MAX_VALUE / 4 - 1), Integer.MAX_VALUE / 4);
+    t.checkException(new IllegalStateException("too many items for one buffer"),
+        new DirectIntStack(1), "grow", Integer.MAX_VALUE / 4);
+  }
+
+  void testMazeBatch(Tester t) {
+    ArrayList<SeededMaze> mazes = new ArrayList<SeededMaze>();
+    new MazeBatch(6, 4, 3).generate(10, 30, m -> mazes.add(m));
+    t.checkExpect(mazes.size(), 20);
+    boolean[] seen = new boolean[20];
+    for (SeededMaze m : mazes) {
+      seen[(int) m.seed - 10] = true;
+      // each maze is the one a single thread would have made from its seed
+      MazeEngine alone = new MazeEngine(6, 4, new Random(m.seed));
+      t.checkExpect(m.engine.walls, alone.walls);
+      t.checkExpect(m.engine.tree, alone.tree);
+    }
+    for (boolean b : seen) {
+      t.checkExpect(b, true);
+    }
+    ArrayList<SeededMaze> none = new ArrayList<SeededMaze>();
+    new MazeBatch(6, 4, 2).generate(5, 5, m -> none.add(m));
+    t.checkExpect(none.size(), 0);
+    t.checkConstructorException(new IllegalArgumentException("threads must be at least 1"),
+        "MazeBatch", 6, 4, 0);
+    t.checkException(new IllegalStateException("full"), new MazeBatch(3, 3, 2), "generate",
+        0L, 100L, (java.util.function.Consumer<SeededMaze>) m -> {
+          throw new IllegalStateException("full");
+        });
+  }
+
+  void testBatchWorkerError(Tester t) {
+    // a queue that fails with an Error on every maze, but still takes the done marker
+    BlockingQueue<SeededMaze> finished = new ArrayBlockingQueue<SeededMaze>(4) {
+      public void put(SeededMaze m) throws InterruptedException {
+        if (m.engine != null) {
+          throw new AssertionError("lost");
+        }
+        super.put(m);
+      }
+    };
+    AtomicBoolean stopped = new AtomicBoolean(false);
+    AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    new BatchWorker(new MazeBatch(3, 3, 1), new AtomicLong(0), 10, finished, stopped,
+        failure).run();
+    t.checkExpect(finished.size(), 1);
+    t.checkExpect(finished.peek().engine, null);
+    t.checkExpect(failure.get() instanceof AssertionError, true);
+    t.checkExpect(stopped.get(), true);
+  }
+
+  void testIntHeap(Tester t) {
+    IntHeap h = new IntHeap(1);
+    t.checkExpect(h.isEmpty(), true);
+    h.add(10, 5);
+    h.add(11, 2);
+    h.add(12, 9);
+    h.add(13, 2);
+    h.add(14, 0);
+    t.checkExpect(h.isEmpty(), false);
+    t.checkExpect(h.remove(), 14);
+    int next = h.remove();
+    t.checkExpect(next == 11 || next == 13, true);
+    next = h.remove();
+    t.checkExpect(next == 11 || next == 13, true);
+    t.checkExpect(h.remove(), 10);
+    t.checkExpect(h.remove(), 12);
+    t.checkExpect(h.isEmpty(), true);
+  }
+
+  void testIntStack(Tester t) {
+    IntStack s = new IntStack(1);
+    t.checkExpect(s.isEmpty(), true);
+    s.add(1);
+    s.add(2);
+    s.add(3);
+    t.checkExpect(s.isEmpty(), false);
+    t.checkExpect(s.remove(), 3);
+    t.checkExpect(s.remove(), 2);
+    t.checkExpect(s.remove(), 1);
+    t.checkExpect(s.isEmpty(), true);
+  }
+
+  void testIntQueue(Tester t) {
+    IntQueue q = new IntQueue(2);
+    t.checkExpect(q.isEmpty(), true);
+    q.add(1);
+    q.add(2);
+    t.checkExpect(q.remove(), 1);
+    // wraps around, then grows
+    q.add(3);
+    q.add(4);
+    t.checkExpect(q.isEmpty(), false);
+    t.checkExpect(q.remove(), 2);
+    t.checkExpect(q.remove(), 3);
+    t.checkExpect(q.remove(), 4);
+    t.checkExpect(q.isEmpty(), true);
   }
 
   void testIsEmpty(Tester t) {
@@ -0,0 +1,51 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// The generation of a maze by a MazeEngine, as an event for Java Flight Recorder
+// the maze events (this one, MazeSolveEvent and MazeFrameEvent) show which mazes were
+// being generated, solved and drawn, next to GC pauses and the rest of the JVM; they are
+// only filled in when isEnabled says the recording wants them, so they cost nothing
+// while nothing is being recorded
+@Name("maze.Generation")
+@Label("Maze Generation")
+@Category("Maze")
+class MazeGenerationEvent extends Event {
+  @Label("Rows")
+  int rows;
+
+  @Label("Columns")
+  int columns;
+
+  @Label("Seed")
+  @Description("Seed of the Random the maze was generated from, if known")
+  long seed;
+
+  @Label("Seeded")
+  @Description("Is the seed known?")
+  boolean seeded;
+
+  @Label("Tiles")
+  @Description("Number of tiles generated at once, or 0 on one thread")
+  int tiles;
+
+  @Label("Init Edges")
+  @Timespan(Timespan.NANOSECONDS)
+  long initEdges;
+
+  @Label("Sort Edges")
+  @Timespan(Timespan.NANOSECONDS)
+  long sortEdges;
+
+  @Label("Calculate Edges")
+  @Description("Kruskals Algorithm, or all of it when generated in tiles")
+  @Timespan(Timespan.NANOSECONDS)
+  long calculateEdges;
+
+  @Label("Init Walls")
+  @Timespan(Timespan.NANOSECONDS)
+  long initWalls;
+}
@@ -0,0 +1,59 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Measures how fast a MazeServer answers: sends requests for the mazes of a range of
+// seeds, keeping a given number of them in flight at once, and records how long each
+// one took
+class MazeLoadClient {
+  HttpClient client;
+  String base; // http://host:port of the server
+  int inFlight; // most requests waiting for an answer at once
+
+  MazeLoadClient(int port, int inFlight) {
+    if (inFlight < 1) {
+      throw new IllegalArgumentException("inFlight must be at least 1");
+    }
+    this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    this.base = "http://127.0.0.1:" + port;
+    this.inFlight = inFlight;
+  }
+
+  // returns the URI of the i-th request: the endpoint (generate, solve or maze) for a
+  // maze of the given size, with one of the given number of seeds
+  URI uri(String endpoint, int rows, int columns, int seeds, int i) {
+    return URI.create(this.base + "/" + endpoint + "?rows=" + rows + "&columns=" + columns
+        + "&seed=" + (i % seeds));
+  }
+
+  // returns how long each of the requests took, and how many failed
+  LoadReport run(String endpoint, int requests, int rows, int columns, int seeds)
+      throws InterruptedException {
+    long[] latencies = new long[requests];
+    AtomicInteger failures = new AtomicInteger();
+    Semaphore slots = new Semaphore(this.inFlight);
+    CompletableFuture<?>[] answers = new CompletableFuture<?>[requests];
+    long start = System.nanoTime();
+    for (int i = 0; i < requests; i++) {
+      slots.acquire();
+      int request = i;
+      long sent = System.nanoTime();
+      HttpRequest r = HttpRequest.newBuilder(uri(endpoint, rows, columns, seeds, i)).build();
+      answers[i] = this.client.sendAsync(r, HttpResponse.BodyHandlers.ofByteArray())
+          .whenComplete((response, failure) -> {
+            latencies[request] = System.nanoTime() - sent;
+            if (failure != null || response.statusCode() != 200) {
+              failures.incrementAndGet();
+            }
+            slots.release();
+          });
+    }
+    // every answer, and so every latency, is in once they have all completed
+    CompletableFuture.allOf(answers).exceptionally(failure -> null).join();
+    return new LoadReport(latencies, failures.get(), System.nanoTime() - start);
+  }
+}
@@ -0,0 +1,121 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Times the phases of generating and solving mazes, and counts the work they do, so a
+// slow reset or search can be pinned on the part of it that is slow
+// nothing is recorded until recording is enabled: every method checks enabled first, so
+// while it is off, instrumented code pays one branch per phase; the counts of the hot
+// loops are kept in locals and plain fields where they happen (see calculateEdges,
+// SearchStepper) and only added here once a phase is over
+// a phase timed with lap shows up in the snapshot as <phase>.count, <phase>.nanos (in
+// total) and <phase>.maxNanos
+class MazeMetrics {
+  static final String OBJECT_NAME = "maze:type=Metrics";
+  static volatile boolean enabled = false;
+  static ConcurrentHashMap<String, LongAdder> totals = new ConcurrentHashMap<String, LongAdder>();
+  static ConcurrentHashMap<String, AtomicLong> maxima = new ConcurrentHashMap<String, AtomicLong>();
+
+  // EFFECT: turns recording on or off
+  static void setEnabled(boolean on) {
+    enabled = on;
+  }
+
+  // returns the time a phase starts, or 0 if nothing is being recorded
+  static long start() {
+    if (enabled) {
+      return System.nanoTime();
+    }
+    else {
+      return 0;
+    }
+  }
+
+  // EFFECT: records the phase as having run from start until now, unless recording was
+  // off when it started
+  // returns the time now, the start of the next phase, or 0 if nothing is being recorded
+  static long lap(String phase, long start) {
+    if (!enabled) {
+      return 0;
+    }
+    long now = System.nanoTime();
+    if (start != 0) {
+      phase(phase, now - start);
+    }
+    return now;
+  }
+
+  // EFFECT: records one run of the phase, which took the given time
+  static void phase(String phase, long nanos) {
+    add(phase + ".count", 1);
+    add(phase + ".nanos", nanos);
+    max(phase + ".maxNanos", nanos);
+  }
+
+  // EFFECT: adds the amount to the named counter
+  static void add(String counter, long amount) {
+    if (enabled) {
+      totals.computeIfAbsent(counter, name -> new LongAdder()).add(amount);
+    }
+  }
+
+  // EFFECT: raises the named gauge to the value, if it is lower
+  static void max(String gauge, long value) {
+    if (enabled) {
+      maxima.computeIfAbsent(gauge, name -> new AtomicLong()).accumulateAndGet(value, Math::max);
+    }
+  }
+
+  // returns every counter and gauge recorded so far, by name
+  static TreeMap<String, Long> snapshot() {
+    TreeMap<String, Long> values = new TreeMap<String, Long>();
+    for (Map.Entry<String, LongAdder> e : totals.entrySet()) {
+      values.put(e.getKey(), e.getValue().sum());
+    }
+    for (Map.Entry<String, AtomicLong> e : maxima.entrySet()) {
+      values.put(e.getKey(), e.getValue().get());
+    }
+    return values;
+  }
+
+  // EFFECT: forgets everything recorded so far
+  static void reset() {
+    totals.clear();
+    maxima.clear();
+  }
+
+  // EFFECT: makes the metrics visible over JMX as OBJECT_NAME, if they aren't already
+  static void register() throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(OBJECT_NAME);
+    if (!server.isRegistered(name)) {
+      server.registerMBean(new MazeMetricsBean(), name);
+    }
+  }
+}
+
+// The JMX view of MazeMetrics
+class MazeMetricsBean implements MazeMetricsMXBean {
+
+  public boolean isEnabled() {
+    return MazeMetrics.enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    MazeMetrics.setEnabled(enabled);
+  }
+
+  public Map<String, Long> getSnapshot() {
+    return MazeMetrics.snapshot();
+  }
+
+  public void reset() {
+    MazeMetrics.reset();
+  }
+}
@@ -0,0 +1,17 @@
+import java.util.Map;
+
+// What MazeMetrics shows over JMX
+// JMX only looks at public interfaces, so this one has its own file
+public interface MazeMetricsMXBean {
+  // is anything being recorded?
+  boolean isEnabled();
+
+  // EFFECT: turns recording on or off
+  void setEnabled(boolean enabled);
+
+  // returns every counter and gauge recorded so far, by name
+  Map<String, Long> getSnapshot();
+
+  // EFFECT: forgets everything recorded so far
+  void reset();
+}
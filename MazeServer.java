@@ -0,0 +1,222 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Generates and solves mazes for other programs over HTTP, on the loopback interface
+// only, so tools can share one warmed up JVM instead of each starting their own
+//   GET /generate?rows=R&columns=C&seed=S
+// generates the maze, and answers with its size and seed
+//   GET /solve?rows=R&columns=C&seed=S&search=bfs
+// answers with the solution length and cells expanded on the first line, then the cells
+// on the solution from the start to the finish; search is any search MazeEngine.solve knows
+//   GET /maze?rows=R&columns=C&seed=S
+// answers with the maze in the MazeFile format
+// a maze is fully determined by its size and seed, so the mazes used most recently are
+// kept, and so are their solutions (see SolutionCache)
+// requests are handled on a fixed pool of threads, one per core by default: generating
+// and solving are all computation, so more threads would only take turns on the cores;
+// requests beyond that wait in the pool's queue
+class MazeServer {
+  HttpServer server;
+  ExecutorService executor; // handles the requests
+  int maxCells; // biggest maze served
+  int capacity; // most mazes kept
+  LinkedHashMap<String, MazeEngine> mazes; // kept mazes by size and seed, oldest first
+  SolutionCache solutions; // solutions of the kept mazes, and of some dropped since
+
+  // port 0 picks a free port, see port()
+  MazeServer(int port, int threads, int maxCells, int capacity) throws IOException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads must be at least 1");
+    }
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+    this.maxCells = maxCells;
+    this.capacity = capacity;
+    this.mazes = new LinkedHashMap<String, MazeEngine>(16, 0.75f, true);
+    this.solutions = new SolutionCache(16 * capacity);
+    this.executor = Executors.newFixedThreadPool(threads);
+    this.server = HttpServer.create(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+    this.server.setExecutor(this.executor);
+    this.server.createContext("/generate", exchange -> handle(exchange, this::generate));
+    this.server.createContext("/solve", exchange -> handle(exchange, this::solve));
+    this.server.createContext("/maze", exchange -> handle(exchange, this::maze));
+  }
+
+  // EFFECT: starts answering requests, on other threads
+  void start() {
+    this.server.start();
+  }
+
+  // EFFECT: stops answering requests, and stops the threads that handled them
+  void stop() {
+    this.server.stop(0);
+    this.executor.shutdown();
+  }
+
+  // returns the port the server listens on
+  int port() {
+    return this.server.getAddress().getPort();
+  }
+
+  // EFFECT: answers the request with the endpoint, or with 400 if its parameters are
+  // wrong, 405 if it isn't a GET, or 500 if the endpoint fails
+  void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+    long start = MazeMetrics.start();
+    try {
+      if (!exchange.getRequestMethod().equals("GET")) {
+        reply(exchange, 405, "only GET is supported\n");
+      }
+      else {
+        endpoint.answer(exchange, query(exchange.getRequestURI().getRawQuery()));
+      }
+    }
+    catch (IllegalArgumentException e) {
+      reply(exchange, 400, e.getMessage() + "\n");
+    }
+    catch (RuntimeException e) {
+      reply(exchange, 500, e + "\n");
+    }
+    finally {
+      exchange.close();
+      // server.generate, server.solve or server.maze
+      MazeMetrics.lap("server" + exchange.getHttpContext().getPath().replace('/', '.'),
+          start);
+    }
+  }
+
+  // returns the parameters in the query part of a URI, or none if it is null
+  static HashMap<String, String> query(String rawQuery) {
+    HashMap<String, String> parameters = new HashMap<String, String>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return parameters;
+    }
+    for (String pair : rawQuery.split("&")) {
+      int equals = pair.indexOf('=');
+      if (equals < 0) {
+        throw new IllegalArgumentException("expected name=value, got " + pair);
+      }
+      parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+          URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+    }
+    return parameters;
+  }
+
+  // returns the value of the named parameter
+  static String parameter(HashMap<String, String> query, String name) {
+    String value = query.get(name);
+    if (value == null) {
+      throw new IllegalArgumentException("missing " + name);
+    }
+    return value;
+  }
+
+  // returns the maze of the size and seed the query names, generating it if it isn't kept
+  MazeEngine engine(HashMap<String, String> query) {
+    int rows = Integer.parseInt(parameter(query, "rows"));
+    int columns = Integer.parseInt(parameter(query, "columns"));
+    long seed = Long.parseLong(parameter(query, "seed"));
+    if (rows < 1 || columns < 1) {
+      throw new IllegalArgumentException("rows and columns must be at least 1");
+    }
+    if ((long) rows * columns > this.maxCells) {
+      throw new IllegalArgumentException("a maze can have at most " + this.maxCells
+          + " cells");
+    }
+    String key = rows + "x" + columns + ":" + seed;
+    synchronized (this.mazes) {
+      MazeEngine engine = this.mazes.get(key);
+      if (engine != null) {
+        return engine;
+      }
+    }
+    // generated outside the lock, so other mazes can be served meanwhile; two requests
+    // for the same new maze may both generate it, and get the same maze
+    MazeEngine engine = new MazeEngine(rows, columns, seed);
+    synchronized (this.mazes) {
+      this.mazes.put(key, engine);
+      if (this.mazes.size() > this.capacity) {
+        this.mazes.remove(this.mazes.keySet().iterator().next());
+      }
+    }
+    return engine;
+  }
+
+  // EFFECT: generates the maze, answering with its size and seed
+  void generate(HttpExchange exchange, HashMap<String, String> query) throws IOException {
+    MazeEngine engine = engine(query);
+    reply(exchange, 200, "rows " + engine.rows + ", columns " + engine.columns + ", seed "
+        + engine.seed + "\n");
+  }
+
+  // EFFECT: solves the maze, answering with the solution
+  void solve(HttpExchange exchange, HashMap<String, String> query) throws IOException {
+    MazeEngine engine = engine(query);
+    String search = query.getOrDefault("search", "bfs");
+    int[] path;
+    int expanded;
+    // searches record the cells they expand on the engine, which other requests share
+    synchronized (engine) {
+      path = this.solutions.solve(engine, engine.seed, search);
+      expanded = engine.nodesExpanded;
+    }
+    if (path == null) {
+      reply(exchange, 200, "no solution, " + expanded + " cells expanded\n");
+      return;
+    }
+    StringBuilder answer = new StringBuilder();
+    answer.append("solution length ").append(engine.solutionLength(path))
+        .append(", ").append(expanded).append(" cells expanded\n");
+    // the path runs back from the finish, without the start and the finish
+    answer.append(0);
+    for (int i = path.length - 1; i >= 0; i--) {
+      answer.append(' ').append(path[i]);
+    }
+    if (engine.cellCount() > 1) {
+      answer.append(' ').append(engine.cellCount() - 1);
+    }
+    reply(exchange, 200, answer.append('\n').toString());
+  }
+
+  // EFFECT: answers with the maze in the MazeFile format
+  void maze(HttpExchange exchange, HashMap<String, String> query) throws IOException {
+    MazeEngine engine = engine(query);
+    byte[] file = new byte[(int) MazeFile.fileSize(engine.cellCount())];
+    MazeFile.write(ByteBuffer.wrap(file), engine, engine.seed);
+    reply(exchange, 200, "application/octet-stream", file);
+  }
+
+  // EFFECT: answers the request with the text
+  static void reply(HttpExchange exchange, int status, String text) throws IOException {
+    reply(exchange, status, "text/plain; charset=utf-8",
+        text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  // EFFECT: answers the request with the body
+  static void reply(HttpExchange exchange, int status, String contentType, byte[] body)
+      throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
+
+// Answers one kind of request to a MazeServer
+interface Endpoint {
+  // EFFECT: answers the request with the given query parameters
+  void answer(HttpExchange exchange, HashMap<String, String> query) throws IOException;
+}
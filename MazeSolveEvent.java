@@ -0,0 +1,27 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// One search through a maze (see MazeEngine.solve)
+@Name("maze.Solve")
+@Label("Maze Solve")
+@Category("Maze")
+class MazeSolveEvent extends Event {
+  @Label("Algorithm")
+  String algorithm;
+
+  @Label("Rows")
+  int rows;
+
+  @Label("Columns")
+  int columns;
+
+  @Label("Cells Expanded")
+  int cellsExpanded;
+
+  @Label("Path Length")
+  @Description("Cells on the solution, counting the start and the finish, or 0 if none")
+  int pathLength;
+}
@@ -0,0 +1,53 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+// A maze kept entirely outside the Java heap, generated line by line with Ellers
+// Algorithm, so even a billion cells need only a few arrays the size of one line on the
+// heap; bfs and dfs keep their worklists and what they know about each cell off the
+// heap too
+class OffHeapMaze extends PackedMaze implements LineSink {
+
+  OffHeapMaze(int rows, int columns, Random r) {
+    super(rows, columns, ByteBuffer.allocateDirect(checkedBytes(rows, columns)), 0);
+    try {
+      new EllerGenerator(rows, columns, r).generate(this);
+    }
+    catch (IOException e) {
+      // line never throws
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // returns the number of bytes the wall bits of a maze this size take
+  static int checkedBytes(int rows, int columns) {
+    if (rows < 1 || columns < 1) {
+      throw new IllegalArgumentException("rows and columns must be at least 1");
+    }
+    if ((long) rows * columns > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("a maze can have at most " + Integer.MAX_VALUE
+          + " cells");
+    }
+    // in long, as rows * columns + 3 can pass Integer.MAX_VALUE
+    return (int) (((long) rows * columns + 3) / 4);
+  }
+
+  // EFFECT: stores the walls of the cells on line x
+  public void line(int x, byte[] walls) {
+    int first = x * this.columns;
+    for (int y = 0; y < walls.length; y++) {
+      setBits(first + y, MazeFile.bits(walls[y]));
+    }
+  }
+
+  // finds a solution to the maze using breadth first search, off the heap
+  int[] bfs() {
+    return searchOffHeap(new DirectIntQueue(this.rows + this.columns));
+  }
+
+  // finds a solution to the maze using depth first search, off the heap
+  int[] dfs() {
+    return searchOffHeap(new DirectIntStack(this.rows + this.columns));
+  }
+}
@@ -0,0 +1,149 @@
+import java.nio.ByteBuffer;
+
+// A maze stored as two wall bits per cell in a ByteBuffer, laid out like the cells of
+// a MazeFile, rather than as a walls array
+// it is only ever searched, never generated by Kruskals Algorithm, so it has no edges:
+// every search reads the walls through openNeighbor
+class PackedMaze extends MazeEngine {
+  static final byte EXPANDED = 8; // a cell's search state once it has been expanded
+
+  ByteBuffer buffer; // holds the wall bits
+  int offset; // index in buffer of the byte with the first cell
+
+  PackedMaze(int rows, int columns, ByteBuffer buffer, int offset) {
+    super(rows, columns);
+    this.buffer = buffer;
+    this.offset = offset;
+  }
+
+  // does the cell have the wall (MazeFile.RIGHT_BIT or MazeFile.BOTTOM_BIT)?
+  boolean hasWall(int cell, int bit) {
+    int packed = this.buffer.get(this.offset + (cell >> 2));
+    return ((packed >> (2 * (cell & 3))) & bit) != 0;
+  }
+
+  // EFFECT: sets the wall bits (see MazeFile) of the cell
+  void setBits(int cell, int bits) {
+    int index = this.offset + (cell >> 2);
+    int shift = 2 * (cell & 3);
+    int packed = this.buffer.get(index) & ~(3 << shift);
+    this.buffer.put(index, (byte) (packed | bits << shift));
+  }
+
+  // returns the neighbor of the cell in the given direction (0 top, 1 left, 2 right,
+  // 3 bottom) if there is no wall in between, otherwise -1
+  int openNeighbor(int cell, int dir) {
+    int x = cell / this.columns;
+    int y = cell % this.columns;
+    if (dir == 0 && y > 0 && !hasWall(cell - 1, MazeFile.BOTTOM_BIT)) {
+      return cell - 1;
+    }
+    if (dir == 1 && x > 0 && !hasWall(cell - this.columns, MazeFile.RIGHT_BIT)) {
+      return cell - this.columns;
+    }
+    if (dir == 2 && x < this.rows - 1 && !hasWall(cell, MazeFile.RIGHT_BIT)) {
+      return cell + this.columns;
+    }
+    if (dir == 3 && y < this.columns - 1 && !hasWall(cell, MazeFile.BOTTOM_BIT)) {
+      return cell + 1;
+    }
+    return -1;
+  }
+
+  // returns the cell next to the given one in the direction
+  int step(int cell, int dir) {
+    if (dir == 0) {
+      return cell - 1;
+    }
+    else if (dir == 1) {
+      return cell - this.columns;
+    }
+    else if (dir == 2) {
+      return cell + this.columns;
+    }
+    else {
+      return cell + 1;
+    }
+  }
+
+  // returns the wall mask of every cell, like MazeEngine.walls
+  byte[] readWalls() {
+    byte[] walls = new byte[cellCount()];
+    for (int cell = 0; cell < walls.length; cell++) {
+      int x = cell / this.columns;
+      int y = cell % this.columns;
+      if (y == 0 || hasWall(cell - 1, MazeFile.BOTTOM_BIT)) {
+        walls[cell] |= TOP;
+      }
+      if (x == 0 || hasWall(cell - this.columns, MazeFile.RIGHT_BIT)) {
+        walls[cell] |= LEFT;
+      }
+      if (hasWall(cell, MazeFile.RIGHT_BIT)) {
+        walls[cell] |= RIGHT;
+      }
+      if (hasWall(cell, MazeFile.BOTTOM_BIT)) {
+        walls[cell] |= BOTTOM;
+      }
+    }
+    return walls;
+  }
+
+  // executes the search for dfs and bfs like searchHelp, but keeps what it knows about
+  // each cell in one byte outside the heap instead of a BitSet and an int[]: the low
+  // bits are one more than the direction back to the cell it was reached from, and
+  // EXPANDED is set once it has been expanded
+  int[] searchOffHeap(IIntCollection worklist) {
+    int n = cellCount();
+    ByteBuffer cells = ByteBuffer.allocateDirect(n);
+    this.nodesExpanded = 0;
+
+    worklist.add(0);
+    while (!worklist.isEmpty()) {
+      int next = worklist.remove();
+      if (next == n - 1) {
+        return reconstructOffHeap(cells, next);
+      }
+      byte state = cells.get(next);
+      if ((state & EXPANDED) == 0) {
+        this.nodesExpanded++;
+        for (int dir = 0; dir < 4; dir++) {
+          int neighbor = openNeighbor(next, dir);
+          if (neighbor >= 0 && (cells.get(neighbor) & EXPANDED) == 0) {
+            // the low bits hold the direction back to next, 3 - dir, shifted up by one
+            // because a cell whose low bits are 0 has not been reached yet
+            cells.put(neighbor, (byte) (4 - dir));
+            worklist.add(neighbor);
+          }
+        }
+        cells.put(next, (byte) (state | EXPANDED));
+      }
+    }
+    return null;
+  }
+
+  // returns the path from the cell before the end back to the cell after the start,
+  // following the directions searchOffHeap left in cells
+  int[] reconstructOffHeap(ByteBuffer cells, int end) {
+    int length = 0;
+    for (int c = back(cells, end); c != 0; c = back(cells, c)) {
+      length++;
+    }
+    int[] path = new int[length];
+    int i = 0;
+    for (int c = back(cells, end); c != 0; c = back(cells, c)) {
+      path[i] = c;
+      i++;
+    }
+    return path;
+  }
+
+  // returns the cell the search reached the given cell from, or the start if it has
+  // not been reached from anywhere, like cameFromCell in searchHelp
+  int back(ByteBuffer cells, int cell) {
+    int code = cells.get(cell) & 7;
+    if (code == 0) {
+      return 0;
+    }
+    return step(cell, code - 1);
+  }
+}
@@ -0,0 +1,208 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Breadth first search on several threads at once, for very large mazes
+// the search goes one level at a time: the frontier, every cell the same number of steps
+// from the start, is cut into chunks that the workers of a fork-join pool expand at the
+// same time, each into a buffer of its own; once the whole level is done, the buffers
+// are joined into the next frontier
+// a cell belongs to whichever chunk first sets its bit in the visited bitmap, with
+// compareAndSet, so no cell is expanded twice; in a perfect maze every cell can only be
+// reached from one other cell, so two chunks never race for the same cell, but the search
+// doesn't count on that
+// the maze is a tree, so there is only one path from the start to the finish, and it is
+// the one bfs finds
+// the frontiers of a perfect maze are narrow, a thousand cells or so on a 3000x3000
+// board, so the chunks are small enough for those levels to be split
+class ParallelBfs {
+  static final int CHUNK = 256; // frontier cells one task expands
+
+  MazeEngine engine; // the maze being searched
+  ForkJoinPool pool; // runs the chunks of big frontiers
+  AtomicLongArray visited; // one bit per cell, set once the cell is reached
+  byte[] cameFrom; // one more than the direction back to where each cell was reached from
+  int[] frontier; // the level being expanded
+  int frontierSize;
+  int[][] buffers; // cells each chunk of the level reached, the next level
+  int[] bufferSizes;
+
+  ParallelBfs(MazeEngine engine, ForkJoinPool pool) {
+    this.engine = engine;
+    this.pool = pool;
+    int n = engine.cellCount();
+    this.visited = new AtomicLongArray((n + 63) / 64);
+    this.cameFrom = new byte[n];
+    this.frontier = new int[CHUNK];
+    this.frontierSize = 0;
+    this.buffers = new int[0][];
+    this.bufferSizes = new int[0];
+  }
+
+  // returns the path from the cell before the finish back to the cell after the start,
+  // like MazeEngine.bfs, or null if there is no path
+  // EFFECT: sets the engine's nodesExpanded to the cells on every level it expanded
+  int[] search() {
+    int n = this.engine.cellCount();
+    int finish = n - 1;
+    this.engine.nodesExpanded = 0;
+    claim(0);
+    this.frontier[0] = 0;
+    this.frontierSize = 1;
+    while (this.frontierSize > 0 && !isVisited(finish)) {
+      int chunks = (this.frontierSize + CHUNK - 1) / CHUNK;
+      ensureBuffers(chunks);
+      if (chunks == 1) {
+        // not worth handing to the pool
+        expandChunk(0);
+      }
+      else {
+        this.pool.invoke(new LevelTask(this, 0, chunks));
+      }
+      this.engine.nodesExpanded += this.frontierSize;
+      joinBuffers(chunks);
+    }
+    if (!isVisited(finish)) {
+      return null;
+    }
+    return reconstruct(finish);
+  }
+
+  // has the search reached the cell?
+  boolean isVisited(int cell) {
+    return (this.visited.get(cell >> 6) & (1L << cell)) != 0;
+  }
+
+  // returns whether the cell was not reached before
+  // EFFECT: marks the cell as reached
+  boolean claim(int cell) {
+    int word = cell >> 6;
+    long bit = 1L << cell;
+    long old = this.visited.get(word);
+    while ((old & bit) == 0) {
+      if (this.visited.compareAndSet(word, old, old | bit)) {
+        return true;
+      }
+      old = this.visited.get(word);
+    }
+    return false;
+  }
+
+  // EFFECT: expands the frontier cells of the given chunk into the chunk's buffer
+  void expandChunk(int chunk) {
+    int from = chunk * CHUNK;
+    int to = Math.min(from + CHUNK, this.frontierSize);
+    int[] buffer = this.buffers[chunk];
+    int size = 0;
+    for (int k = from; k < to; k++) {
+      int cell = this.frontier[k];
+      for (int dir = 0; dir < 4; dir++) {
+        int neighbor = this.engine.openNeighbor(cell, dir);
+        if (neighbor >= 0 && claim(neighbor)) {
+          // the way back from the neighbor is 3 - dir; one is added to it so that 0 is
+          // left to mean the cell was not reached
+          this.cameFrom[neighbor] = (byte) (4 - dir);
+          buffer[size] = neighbor;
+          size++;
+        }
+      }
+    }
+    this.bufferSizes[chunk] = size;
+  }
+
+  // EFFECT: makes sure there is a buffer for each chunk of the level
+  void ensureBuffers(int chunks) {
+    if (this.buffers.length < chunks) {
+      int[][] more = new int[chunks][];
+      System.arraycopy(this.buffers, 0, more, 0, this.buffers.length);
+      for (int chunk = this.buffers.length; chunk < chunks; chunk++) {
+        // each cell reaches at most its four neighbors
+        more[chunk] = new int[4 * CHUNK];
+      }
+      this.buffers = more;
+      this.bufferSizes = new int[chunks];
+    }
+  }
+
+  // EFFECT: makes the cells the chunks reached the next frontier
+  void joinBuffers(int chunks) {
+    int size = 0;
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      size += this.bufferSizes[chunk];
+    }
+    if (size > this.frontier.length) {
+      this.frontier = new int[Math.max(size, 2 * this.frontier.length)];
+    }
+    int at = 0;
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      System.arraycopy(this.buffers[chunk], 0, this.frontier, at, this.bufferSizes[chunk]);
+      at += this.bufferSizes[chunk];
+    }
+    this.frontierSize = size;
+  }
+
+  // returns the path from the cell before the end back to the cell after the start
+  int[] reconstruct(int end) {
+    int length = 0;
+    for (int c = back(end); c != 0; c = back(c)) {
+      length++;
+    }
+    int[] path = new int[length];
+    int i = 0;
+    for (int c = back(end); c != 0; c = back(c)) {
+      path[i] = c;
+      i++;
+    }
+    return path;
+  }
+
+  // returns the cell the search reached the given cell from, or the start if it was
+  // not reached from anywhere
+  int back(int cell) {
+    int code = this.cameFrom[cell];
+    if (code == 0) {
+      return 0;
+    }
+    int dir = code - 1;
+    if (dir == 0) {
+      return cell - 1;
+    }
+    else if (dir == 1) {
+      return cell - this.engine.columns;
+    }
+    else if (dir == 2) {
+      return cell + this.engine.columns;
+    }
+    else {
+      return cell + 1;
+    }
+  }
+}
+
+// Expands the chunks [from, to) of a level of a ParallelBfs, halving the range until
+// only one chunk is left
+class LevelTask extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+
+  ParallelBfs search;
+  int from; // first chunk
+  int to; // one past the last chunk
+
+  LevelTask(ParallelBfs search, int from, int to) {
+    this.search = search;
+    this.from = from;
+    this.to = to;
+  }
+
+  // EFFECT: expands the chunks
+  protected void compute() {
+    if (this.to - this.from == 1) {
+      this.search.expandChunk(this.from);
+    }
+    else {
+      int middle = (this.from + this.to) >>> 1;
+      invokeAll(new LevelTask(this.search, this.from, middle),
+          new LevelTask(this.search, middle, this.to));
+    }
+  }
+}
@@ -0,0 +1,68 @@
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+// A breadth or depth first search that can stop after a number of cells and pick up
+// where it left off, so the search can be shown a few cells at a time
+class SearchStepper {
+  MazeEngine engine; // the maze being searched
+  IIntCollection worklist; // cells waiting to be expanded
+  BitSet alreadySeen; // cells already expanded
+  int[] cameFromCell; // the cell each cell was reached from
+  int expanded; // number of cells expanded so far
+  boolean done; // has the search finished?
+  int[] path; // once done, the path found (see MazeEngine.searchHelp), or null
+  int worklistPeak; // most cells ever waiting in the worklist
+
+  SearchStepper(MazeEngine engine, IIntCollection worklist) {
+    this.engine = engine;
+    this.worklist = worklist;
+    this.alreadySeen = new BitSet(engine.cellCount());
+    this.cameFromCell = new int[engine.cellCount()];
+    this.expanded = 0;
+    this.done = false;
+    this.path = null;
+    // Initialize the worklist with the from vertex
+    this.worklist.add(0);
+    this.worklistPeak = 1;
+  }
+
+  // EFFECT: expands up to budget more cells, telling onExpand (if not null) about each
+  // one, and sets done and path once the search finishes
+  // returns whether the search is done
+  boolean step(int budget, IntConsumer onExpand) {
+    int n = this.engine.cellCount();
+    int limit = this.expanded + Math.min(budget, n - this.expanded);
+    // As long as the worklist isn't empty...
+    while (!this.done && this.expanded < limit && !this.worklist.isEmpty()) {
+      int next = this.worklist.remove();
+      if (next == n - 1) {
+        this.path = this.engine.reconstruct(this.cameFromCell, next); // Success!
+        this.done = true;
+      }
+      else if (this.alreadySeen.get(next)) {
+        // do nothing: we've already seen this one
+      }
+      else {
+        this.expanded++;
+        for (int dir = 0; dir < 4; dir++) {
+          int neighbor = this.engine.openNeighbor(next, dir);
+          if (neighbor >= 0 && !this.alreadySeen.get(neighbor)) {
+            this.cameFromCell[neighbor] = next;
+            this.worklist.add(neighbor);
+          }
+        }
+        this.worklistPeak = Math.max(this.worklistPeak, this.worklist.size());
+        // add next to alreadySeen, since we're done with it
+        this.alreadySeen.set(next);
+        if (onExpand != null) {
+          onExpand.accept(next);
+        }
+      }
+    }
+    // We haven't found the to vertex, and there are no more to try
+    if (this.worklist.isEmpty()) {
+      this.done = true;
+    }
+    return this.done;
+  }
+}
@@ -0,0 +1,10 @@
+// A maze together with the seed it was generated from
+class SeededMaze {
+  long seed;
+  MazeEngine engine;
+
+  SeededMaze(long seed, MazeEngine engine) {
+    this.seed = seed;
+    this.engine = engine;
+  }
+}
@@ -0,0 +1,68 @@
+import java.util.LinkedHashMap;
+
+// Remembers the solutions of the mazes solved most recently, so solving the same maze
+// again costs a lookup instead of a search
+// a maze is fully determined by its size and the seed of its Random, so those and the
+// name of the search (see MazeEngine.solve) name a solution; once there are more than
+// capacity solutions, the one used longest ago is dropped
+// safe to share between threads
+class SolutionCache {
+  int capacity; // most solutions kept
+  LinkedHashMap<SolutionKey, CachedSolution> solutions; // least recently used first
+  int hits; // lookups that found a solution
+  int misses; // lookups that had to search
+
+  SolutionCache(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+    this.capacity = capacity;
+    this.solutions = new LinkedHashMap<SolutionKey, CachedSolution>(16, 0.75f, true);
+    this.hits = 0;
+    this.misses = 0;
+  }
+
+  // returns the cached solution, or null if there is none
+  // EFFECT: makes it the most recently used
+  synchronized CachedSolution get(SolutionKey key) {
+    CachedSolution solution = this.solutions.get(key);
+    if (solution == null) {
+      this.misses++;
+    }
+    else {
+      this.hits++;
+    }
+    return solution;
+  }
+
+  // EFFECT: caches the solution, dropping the least recently used one if there are too many
+  synchronized void put(SolutionKey key, CachedSolution solution) {
+    this.solutions.put(key, solution);
+    if (this.solutions.size() > this.capacity) {
+      this.solutions.remove(this.solutions.keySet().iterator().next());
+    }
+  }
+
+  // returns the number of solutions cached
+  synchronized int size() {
+    return this.solutions.size();
+  }
+
+  // returns the path the search finds through the engine's maze, which was generated
+  // from the seed, searching only if the solution isn't cached
+  // EFFECT: sets the engine's nodesExpanded as if it had searched
+  int[] solve(MazeEngine engine, long seed, String search) {
+    SolutionKey key = new SolutionKey(engine.rows, engine.columns, seed, search);
+    CachedSolution solution = get(key);
+    if (solution != null) {
+      engine.nodesExpanded = solution.nodesExpanded;
+      return solution.path(engine.rows, engine.columns);
+    }
+    int[] path = engine.solve(search);
+    if (path != null) {
+      put(key, new CachedSolution(path, engine.columns, engine.rows * engine.columns - 1,
+          engine.nodesExpanded));
+    }
+    return path;
+  }
+}
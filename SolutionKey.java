@@ -0,0 +1,32 @@
+// Names a solution in a SolutionCache: the maze, and the search that solved it
+class SolutionKey {
+  int rows;
+  int columns;
+  long seed; // seed of the Random the maze was generated from
+  String search; // name of the search, see MazeEngine.solve
+
+  SolutionKey(int rows, int columns, long seed, String search) {
+    this.rows = rows;
+    this.columns = columns;
+    this.seed = seed;
+    this.search = search;
+  }
+
+  // is the other object a key for the same maze and search?
+  public boolean equals(Object other) {
+    if (!(other instanceof SolutionKey)) {
+      return false;
+    }
+    SolutionKey that = (SolutionKey) other;
+    return this.rows == that.rows && this.columns == that.columns && this.seed == that.seed
+        && this.search.equals(that.search);
+  }
+
+  // returns a hash code consistent with equals
+  public int hashCode() {
+    int hash = this.rows;
+    hash = 31 * hash + this.columns;
+    hash = 31 * hash + Long.hashCode(this.seed);
+    return 31 * hash + this.search.hashCode();
+  }
+}
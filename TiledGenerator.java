@@ -0,0 +1,196 @@
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// Generates one maze on several threads at once
+// the board is cut into tiles, strips of whole columns of vertices, and every tile runs
+// Kruskals Algorithm over the edges inside it at the same time; then one thread stitches
+// the tiles together by running Kruskals Algorithm again over the edges the tiles kept
+// and the edges between them
+// an edge a tile leaves out closes a loop of lighter edges inside the tile, so it would
+// be left out of the whole board too; only the edges the tiles kept can be part of the
+// tree, and stitching them picks the tree Kruskals Algorithm would on the whole board
+// the border edges weigh the least, so they are always kept and stitched first
+class TiledGenerator {
+  MazeEngine engine; // the maze being generated
+  int tiles; // number of tiles
+  int[] tileStarts; // vertex x where each tile begins, then rows + 1
+  long[] seeds; // seed of the Random each tile uses
+  int[][] tileTrees; // edges each tile accepted
+  int[] tileTreeSizes; // number of edges each tile accepted
+
+  TiledGenerator(MazeEngine engine, int tiles) {
+    if (tiles < 1) {
+      throw new IllegalArgumentException("tiles must be at least 1");
+    }
+    this.engine = engine;
+    // every tile needs at least one column of vertices
+    this.tiles = Math.min(tiles, engine.rows + 1);
+    this.tileStarts = new int[this.tiles + 1];
+    this.seeds = new long[this.tiles];
+    for (int t = 0; t <= this.tiles; t++) {
+      this.tileStarts[t] = (int) ((long) t * (engine.rows + 1) / this.tiles);
+    }
+    // the seeds are drawn before any tile starts, so the maze doesn't depend on which
+    // tile happens to run first
+    for (int t = 0; t < this.tiles; t++) {
+      this.seeds[t] = engine.r.nextLong();
+    }
+    this.tileTrees = new int[this.tiles][];
+    this.tileTreeSizes = new int[this.tiles];
+  }
+
+  // EFFECT: generates the tree of the engine's maze
+  void generate() {
+    this.engine.representatives = new UnionFind(this.engine.vertexCount());
+    this.engine.weights = new byte[2 * this.engine.vertexCount()];
+    this.engine.edges = new int[0];
+    this.engine.edgeCount = 0;
+
+    ArrayList<TileTask> tasks = new ArrayList<TileTask>();
+    for (int t = 0; t < this.tiles; t++) {
+      tasks.add(new TileTask(this, t));
+    }
+    ForkJoinTask.invokeAll(tasks);
+    stitch();
+  }
+
+  // is the edge part of the border that every maze has?
+  // the left wall of the start is left out, like in calculateEdges
+  boolean isBorderEdge(int id) {
+    int v = this.engine.edgeVertex1(id);
+    int x = this.engine.vertexX(v);
+    int y = this.engine.vertexY(v);
+    if (this.engine.isHorizontal(id)) {
+      return y == 0 || y == this.engine.columns;
+    }
+    else {
+      return id != 0 && (x == 0 || x == this.engine.rows);
+    }
+  }
+
+  // EFFECT: runs Kruskals Algorithm over the edges that lie inside the tile, keeping a
+  // spanning forest of the tile
+  // only touches the vertices of the tile, so tiles can run at the same time
+  void generateTile(int t) {
+    MazeEngine e = this.engine;
+    Random r = new Random(this.seeds[t]);
+    int stride = e.columns + 1;
+    int first = this.tileStarts[t];
+    int last = this.tileStarts[t + 1];
+    UnionFind sets = e.representatives;
+
+    int[] inside = new int[2 * (last - first) * stride];
+    int insideCount = 0;
+    // a forest has fewer edges than vertices
+    int[] tree = new int[(last - first) * stride];
+    int treeSize = 0;
+    for (int x = first; x < last; x++) {
+      for (int y = 0; y < stride; y++) {
+        int v = x * stride + y;
+        // the edge down from v, then the edge right from v
+        for (int id = 2 * v; id <= 2 * v + 1; id++) {
+          boolean exists = e.isHorizontal(id) ? x < e.rows : y < e.columns;
+          // an edge right from the last column leads into the next tile, so it waits
+          // for stitch
+          boolean leaves = e.isHorizontal(id) && x + 1 == last;
+          if (!exists || leaves || id == 0) {
+            continue;
+          }
+          if (isBorderEdge(id)) {
+            // the border of one tile never closes a loop, and weighs the least, so it
+            // is kept before any other edge
+            e.weights[id] = 1;
+            sets.union(e.edgeVertex1(id), e.edgeVertex2(id));
+            tree[treeSize] = id;
+            treeSize++;
+          }
+          else {
+            e.weights[id] = (byte) (r.nextInt(5) + 2);
+            inside[insideCount] = id;
+            insideCount++;
+          }
+        }
+      }
+    }
+
+    int[] sorted = MazeEngine.sortByWeight(inside, insideCount, e.weights, r);
+    for (int i = 0; i < insideCount; i++) {
+      int id = sorted[i];
+      if (sets.union(e.edgeVertex1(id), e.edgeVertex2(id))) {
+        tree[treeSize] = id;
+        treeSize++;
+      }
+    }
+    this.tileTrees[t] = tree;
+    this.tileTreeSizes[t] = treeSize;
+  }
+
+  // EFFECT: joins the tiles by running Kruskals Algorithm over the edges the tiles kept
+  // and the edges between them, and collects the tree
+  void stitch() {
+    MazeEngine e = this.engine;
+    UnionFind sets = e.representatives;
+    int stride = e.columns + 1;
+    int kept = 0;
+    for (int t = 0; t < this.tiles; t++) {
+      kept += this.tileTreeSizes[t];
+    }
+
+    int[] candidates = new int[kept + Math.max(0, (this.tiles - 1) * (e.columns + 1))];
+    int count = 0;
+    for (int t = 0; t < this.tiles; t++) {
+      System.arraycopy(this.tileTrees[t], 0, candidates, count, this.tileTreeSizes[t]);
+      count += this.tileTreeSizes[t];
+      this.tileTrees[t] = null;
+    }
+    // the edges right from the last column of each tile
+    for (int t = 0; t < this.tiles - 1; t++) {
+      int x = this.tileStarts[t + 1] - 1;
+      for (int y = 0; y <= e.columns; y++) {
+        int id = 2 * (x * stride + y) + 1;
+        if (isBorderEdge(id)) {
+          e.weights[id] = 1;
+        }
+        else {
+          e.weights[id] = (byte) (e.r.nextInt(5) + 2);
+        }
+        candidates[count] = id;
+        count++;
+      }
+    }
+    int[] sorted = MazeEngine.sortByWeight(candidates, count, e.weights, e.r);
+
+    sets.reset();
+    e.tree = new int[e.vertexCount()];
+    int numEdges = 0;
+    for (int i = 0; i < count && numEdges < e.vertexCount() - 1; i++) {
+      int id = sorted[i];
+      if (sets.union(e.edgeVertex1(id), e.edgeVertex2(id))) {
+        e.tree[numEdges] = id;
+        numEdges++;
+      }
+    }
+    e.weights[0] = 1;
+    e.tree[numEdges] = 0;
+  }
+}
+
+// Generates one tile of a TiledGenerator
+class TileTask extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+
+  TiledGenerator generator;
+  int tile;
+
+  TileTask(TiledGenerator generator, int tile) {
+    this.generator = generator;
+    this.tile = tile;
+  }
+
+  // EFFECT: generates the tile
+  protected void compute() {
+    this.generator.generateTile(this.tile);
+  }
+}
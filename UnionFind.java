@@ -0,0 +1,68 @@
+// Disjoint sets over the vertex indices 0 .. size - 1
+// union by rank keeps the trees shallow, and find compresses the path it walks,
+// so a sequence of n operations runs in near-linear time
+class UnionFind {
+  int[] parent; // parent of each element, roots are their own parent
+  byte[] rank; // upper bound on the height of each root's tree
+
+  UnionFind(int size) {
+    this.parent = new int[size];
+    this.rank = new byte[size];
+    this.reset();
+  }
+
+  // EFFECT: puts every element back into its own set
+  void reset() {
+    for (int i = 0; i < this.parent.length; i++) {
+      this.parent[i] = i;
+      this.rank[i] = 0;
+    }
+  }
+
+  // finds the representative of the set containing the element
+  // EFFECT: points every element on the way directly at the representative
+  int find(int element) {
+    int root = element;
+    while (this.parent[root] != root) {
+      root = this.parent[root];
+    }
+    while (this.parent[element] != root) {
+      int next = this.parent[element];
+      this.parent[element] = root;
+      element = next;
+    }
+    return root;
+  }
+
+  // returns the number of parents find would follow from the element to its
+  // representative, without changing anything
+  int hops(int element) {
+    int hops = 0;
+    while (this.parent[element] != element) {
+      element = this.parent[element];
+      hops++;
+    }
+    return hops;
+  }
+
+  // EFFECT: merges the sets containing the two elements
+  // returns false if they were already in the same set
+  boolean union(int element1, int element2) {
+    int root1 = this.find(element1);
+    int root2 = this.find(element2);
+    if (root1 == root2) {
+      return false;
+    }
+    if (this.rank[root1] < this.rank[root2]) {
+      this.parent[root1] = root2;
+    }
+    else if (this.rank[root1] > this.rank[root2]) {
+      this.parent[root2] = root1;
+    }
+    else {
+      this.parent[root2] = root1;
+      this.rank[root1]++;
+    }
+    return true;
+  }
+}
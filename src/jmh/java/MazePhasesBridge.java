@@ -0,0 +1,79 @@
+import java.util.Arrays;
+import java.util.Random;
+
+import mazebench.MazePhases;
+
+// Gives the benchmarks in mazebench access to the phases of Maze and MazeEngine
+// loaded by name, since classes in a package can't refer to the default package
+public class MazePhasesBridge implements MazePhases {
+  Maze maze;
+  long seed;
+  int[] unsortedEdges; // edges in the order initEdges created them
+
+  public void generate(int rows, int columns, long seed) {
+    this.seed = seed;
+    this.maze = new Maze(rows, columns, new Random(seed));
+    this.clearEdges();
+    this.maze.engine.initEdges();
+    this.unsortedEdges = Arrays.copyOf(this.maze.engine.edges, this.maze.engine.edgeCount);
+    this.maze.engine.sortEdges();
+  }
+
+  public Object reset() {
+    this.maze.reset(this.maze.rows, this.maze.columns, new Random(this.seed));
+    return this.maze;
+  }
+
+  public Object generateEngine() {
+    return new MazeEngine(this.maze.rows, this.maze.columns, new Random(this.seed));
+  }
+
+  public Object generateTiled(int tiles) {
+    return new MazeEngine(this.maze.rows, this.maze.columns, new Random(this.seed), tiles);
+  }
+
+  public void clearEdges() {
+    this.maze.engine.r = new Random(this.seed);
+  }
+
+  public Object initEdges() {
+    this.maze.engine.initEdges();
+    return this.maze.engine.edges;
+  }
+
+  public void unsortEdges() {
+    this.maze.engine.edges = Arrays.copyOf(this.unsortedEdges, this.unsortedEdges.length);
+  }
+
+  public Object sortEdges() {
+    this.maze.engine.sortEdges();
+    return this.maze.engine.edges;
+  }
+
+  public Object calculateEdges() {
+    this.maze.engine.calculateEdges();
+    return this.maze.engine.tree;
+  }
+
+  public Object initWalls() {
+    this.maze.engine.initWalls();
+    return this.maze.engine.walls;
+  }
+
+  public void clearCells() {
+    this.maze.board = null;
+  }
+
+  public Object initCells() {
+    this.maze.initCells();
+    return this.maze.board;
+  }
+
+  public Object searchQueue() {
+    return this.maze.engine.bfs();
+  }
+
+  public Object searchStack() {
+    return this.maze.engine.dfs();
+  }
+}
@@ -0,0 +1,27 @@
+package mazebench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// A generated maze of each benchmarked size and seed
+@State(Scope.Thread)
+public class BoardState {
+  // square boards, size x size cells
+  @Param({"10", "100", "300", "1000"})
+  public int size;
+
+  @Param({"1", "42"})
+  public long seed;
+
+  public MazePhases maze;
+
+  @Setup(Level.Trial)
+  public void generate() throws ReflectiveOperationException {
+    this.maze = (MazePhases) Class.forName("MazePhasesBridge")
+        .getDeclaredConstructor().newInstance();
+    this.maze.generate(this.size, this.size, this.seed);
+  }
+}
@@ -0,0 +1,80 @@
+package mazebench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Times Maze.reset as a whole, MazeEngine's generation on one thread and in tiles,
+// and each phase of Maze.reset on its own:
+// MazeEngine's generation, then building the board Maze draws
+// every phase runs on a maze that has been through all the phases before it;
+// the per-invocation setups undo the phase under test without being timed
+public class GenerationBenchmark {
+
+  @State(Scope.Thread)
+  public static class EdgesState extends BoardState {
+    @Setup(Level.Invocation)
+    public void clear() {
+      this.maze.clearEdges();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class SortState extends BoardState {
+    @Setup(Level.Invocation)
+    public void unsort() {
+      this.maze.unsortEdges();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class CellsState extends BoardState {
+    @Setup(Level.Invocation)
+    public void clear() {
+      this.maze.clearCells();
+    }
+  }
+
+  @Benchmark
+  public Object reset(BoardState s) {
+    return s.maze.reset();
+  }
+
+  @Benchmark
+  public Object generateEngine(BoardState s) {
+    return s.maze.generateEngine();
+  }
+
+  // one tile per core, so this against generateEngine shows how generation scales
+  @Benchmark
+  public Object generateTiled(BoardState s) {
+    return s.maze.generateTiled(Runtime.getRuntime().availableProcessors());
+  }
+
+  @Benchmark
+  public Object initEdges(EdgesState s) {
+    return s.maze.initEdges();
+  }
+
+  @Benchmark
+  public Object sortEdges(SortState s) {
+    return s.maze.sortEdges();
+  }
+
+  @Benchmark
+  public Object calculateEdges(BoardState s) {
+    return s.maze.calculateEdges();
+  }
+
+  @Benchmark
+  public Object initWalls(BoardState s) {
+    return s.maze.initWalls();
+  }
+
+  @Benchmark
+  public Object initCells(CellsState s) {
+    return s.maze.initCells();
+  }
+}
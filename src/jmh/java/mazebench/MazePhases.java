@@ -0,0 +1,51 @@
+package mazebench;
+
+// The phases of generating and solving a maze, as seen by the benchmarks
+// the game is in the default package, which benchmarks can't import, so
+// MazePhasesBridge implements this interface on its behalf
+public interface MazePhases {
+
+  // EFFECT: builds a whole new maze with the given size and seed,
+  // and remembers what the phases below need to run again
+  void generate(int rows, int columns, long seed);
+
+  // EFFECT: resets the maze to a new one of the same size and seed, returns it
+  Object reset();
+
+  // generates a new engine of the same size and seed on one thread, returns it
+  Object generateEngine();
+
+  // generates a new engine of the same size and seed in the given number of tiles,
+  // returns it
+  Object generateTiled(int tiles);
+
+  // EFFECT: rewinds the Random, so initEdges draws the same weights again
+  void clearEdges();
+
+  // EFFECT: creates the unsorted edges, returns them
+  Object initEdges();
+
+  // EFFECT: puts back the edges in the order initEdges created them
+  void unsortEdges();
+
+  // EFFECT: sorts the edges by weight, returns them
+  Object sortEdges();
+
+  // EFFECT: runs Kruskal's algorithm over the sorted edges, returns the walls of the maze
+  Object calculateEdges();
+
+  // EFFECT: records the walls around each cell, returns them
+  Object initWalls();
+
+  // EFFECT: forgets the cells, so initCells can run again
+  void clearCells();
+
+  // EFFECT: creates the board of cell colors, returns it
+  Object initCells();
+
+  // solves the maze with breadth first search, returns the path
+  Object searchQueue();
+
+  // solves the maze with depth first search, returns the path
+  Object searchStack();
+}
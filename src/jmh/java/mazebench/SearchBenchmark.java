@@ -0,0 +1,17 @@
+package mazebench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+// Times Maze.searchHelp from the start to the finish of a generated maze
+public class SearchBenchmark {
+
+  @Benchmark
+  public Object searchQueue(BoardState s) {
+    return s.maze.searchQueue();
+  }
+
+  @Benchmark
+  public Object searchStack(BoardState s) {
+    return s.maze.searchStack();
+  }
+}